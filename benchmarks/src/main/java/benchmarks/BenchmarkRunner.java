@@ -0,0 +1,34 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for the benchmark jar.
+ * Runs every benchmark (or those matching the regexes given on the command line) in throughput mode
+ * with the gc profiler attached, so each result also reports allocation rate and bytes allocated per operation.
+ * Accepts every normal JMH command line option.
+ * @author Nex
+ *
+ */
+public class BenchmarkRunner {
+
+	/**
+	 * Runs the benchmarks
+	 * @param args JMH command line options, such as a regex of benchmarks to include
+	 */
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.mode(Mode.Throughput)
+				.addProfiler(GCProfiler.class)
+				.build();
+
+		new Runner(options).run();
+	}
+
+}
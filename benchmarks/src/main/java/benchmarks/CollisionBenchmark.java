@@ -0,0 +1,101 @@
+package benchmarks;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import engine.Engine;
+import engine.manager.CollisionManager;
+import mathematics.Vec;
+import objects.GameObject;
+import objects.MovableGameObject;
+import state.engine.EngineState;
+
+/**
+ * Benchmarks a single pass of the {@link CollisionManager} over worlds of different sizes.
+ * One in ten objects is movable, and every movable object has just moved half inside the wall to its right,
+ * so collisions are resolved each pass. Movers are moved back into the wall before every pass,
+ * so every pass measures the same configuration.
+ * @author Nex
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CollisionBenchmark {
+
+	@Param({"100", "1000", "5000"})
+	public int objectCount;
+
+	private CollisionManager collisions;
+	private ArrayList<MovableGameObject> movers;
+	private Vec step;						//How far each mover moves into its wall
+
+	@Setup
+	public void setup(){
+		movers = new ArrayList<MovableGameObject>();
+		step = new Vec(15, 0);
+
+		Engine engine = new Engine(true);
+		EngineState state = engine.getCurrentState();
+
+		for(int i = 0; i < objectCount; i++){
+			double x = (i % 100) * 30;
+			double y = (i / 100) * 30;
+
+			GameObject obj;
+			if(i % 10 == 0){
+				//Starts in its own cell, and is moved half inside the wall to its right before each pass
+				MovableGameObject mover = new MovableGameObject(x, y, 20, 20, new Vec(1, 0));
+				mover.refresh();
+				movers.add(mover);
+				obj = mover;
+			}
+			else{
+				obj = new GameObject(x, y, 20, 20, new Vec(1, 0));
+			}
+			obj.setShape(new Rectangle2D.Double());
+			obj.setVisible(true);
+			state.addObj(obj);
+		}
+
+		//Apply the queued adds
+		state.update();
+
+		collisions = (CollisionManager)engine.getManager(Engine.Managers.COLLISIONMANAGER);
+	}
+
+	/**
+	 * Moves every mover from its own cell half inside the wall to its right, as a tick would before collisions run
+	 */
+	@Setup(Level.Invocation)
+	public void moveIntoWalls(){
+		for(int i = 0; i < movers.size(); i++){
+			MovableGameObject mover = movers.get(i);
+			//The last pass reverted the mover to its own cell
+			mover.move(step);
+		}
+	}
+
+	@Benchmark
+	public void update(){
+		collisions.update();
+	}
+
+}
@@ -0,0 +1,79 @@
+package benchmarks;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mathematics.Vec;
+import objects.GameObject;
+import sprites.Sprite;
+
+/**
+ * Benchmarks {@link GameObject#draw(Graphics2D, double)} into an offscreen image,
+ * for an object drawn as a shape and an object drawn as a sprite.
+ * @author Nex
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DrawBenchmark {
+
+	private BufferedImage target;
+	private Graphics2D g2d;
+	private GameObject shapeObject, spriteObject;
+
+	@Setup
+	public void setup(){
+		target = new BufferedImage(800, 600, BufferedImage.TYPE_INT_ARGB);
+		g2d = target.createGraphics();
+
+		shapeObject = new GameObject(400, 300, 40, 40, Vec.rotate(new Vec(1, 0), 0.5));
+		shapeObject.setShape(new Rectangle2D.Double(), Color.blue);
+		shapeObject.setVisible(true);
+
+		//A sheet with one row of four 32x32 frames
+		BufferedImage sheet = new BufferedImage(128, 32, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D sheetGraphics = sheet.createGraphics();
+		sheetGraphics.setColor(Color.green);
+		sheetGraphics.fillRect(0, 0, 128, 32);
+		sheetGraphics.dispose();
+
+		spriteObject = new GameObject(200, 150, 32, 32, Vec.rotate(new Vec(1, 0), 0.5));
+		spriteObject.setSprite(new Sprite(sheet, 1, new int[] { 4 }, 32, 32));
+		spriteObject.setVisible(true);
+	}
+
+	@TearDown
+	public void tearDown(){
+		g2d.dispose();
+	}
+
+	@Benchmark
+	public void drawShape(){
+		shapeObject.draw(g2d, 0.5);
+	}
+
+	@Benchmark
+	public void drawSprite(){
+		spriteObject.draw(g2d, 0.5);
+	}
+
+}
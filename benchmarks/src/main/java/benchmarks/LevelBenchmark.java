@@ -0,0 +1,95 @@
+package benchmarks;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import levels.Level;
+import loader.LevelLoader;
+import objects.GameObject;
+
+/**
+ * Benchmarks building a level from an image with {@link LevelLoader#parseLevel(BufferedImage)},
+ * and merging its objects with {@link Level#optimize()}.
+ * Levels are generated from a fixed seed as runs of colored pixels separated by white.
+ * @author Nex
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class LevelBenchmark {
+
+	@Param({"64", "256"})
+	public int levelSize;
+
+	private BufferedImage levelPicture;
+	private LevelLoader loader;
+
+	@Setup
+	public void setup(){
+		Color[] palette = { Color.white, Color.red, Color.blue, Color.green };
+		Random random = new Random(42);
+
+		levelPicture = new BufferedImage(levelSize, levelSize, BufferedImage.TYPE_INT_RGB);
+		for(int x = 0; x < levelSize; x++){
+			int y = 0;
+			while(y < levelSize){
+				int run = 1 + random.nextInt(8);
+				int rgb = palette[random.nextInt(palette.length)].getRGB();
+				for(int i = 0; i < run && y < levelSize; i++, y++){
+					levelPicture.setRGB(x, y, rgb);
+				}
+			}
+		}
+
+		loader = new LevelLoader(){
+			@Override
+			protected void mutateObject(GameObject obj, Color c) {
+
+			}
+		};
+	}
+
+	@Benchmark
+	public Level parse(){
+		return loader.parseLevel(levelPicture);
+	}
+
+	@Benchmark
+	public Level optimize(Unoptimized level){
+		level.level.optimize();
+		return level.level;
+	}
+
+	/**
+	 * Holds a fresh unoptimized level for every call to optimize, since optimize changes the level
+	 */
+	@State(Scope.Thread)
+	public static class Unoptimized {
+
+		private Level level;
+
+		@Setup(org.openjdk.jmh.annotations.Level.Invocation)
+		public void parse(LevelBenchmark benchmark){
+			level = benchmark.loader.parseLevel(benchmark.levelPicture);
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+package benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import engine.Engine;
+import engine.manager.SpriteManager;
+import sprites.Sprite;
+
+/**
+ * Benchmarks {@link Sprite#update(SpriteManager)}.
+ * The sprite clock is replaced with one which always reports a frame has passed,
+ * so every update advances the animation instead of returning early.
+ * @author Nex
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SpriteBenchmark {
+
+	private Sprite sprite;
+	private SpriteManager clock;
+
+	@Setup
+	public void setup(){
+		final Engine engine = new Engine(true);
+		clock = new SpriteManager(engine){
+			@Override
+			public double getDeltaFrames(){
+				return 1;
+			}
+		};
+
+		BufferedImage sheet = new BufferedImage(256, 64, BufferedImage.TYPE_INT_ARGB);
+		sprite = new Sprite(sheet, 2, new int[] { 8, 4 }, 32, 32);
+		sprite.queueAnimation(0, true);
+	}
+
+	@Benchmark
+	public Sprite update(){
+		sprite.update(clock);
+		return sprite;
+	}
+
+}
@@ -0,0 +1,89 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mathematics.Vec;
+
+/**
+ * Benchmarks {@link Vec} arithmetic, both the in place methods and the static methods which allocate a new vector.
+ * @author Nex
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VecBenchmark {
+
+	private Vec a, b, scratch;
+
+	@Setup
+	public void setup(){
+		a = new Vec(3.0, 4.0);
+		b = new Vec(-1.5, 2.25);
+		scratch = new Vec(2);
+	}
+
+	@Benchmark
+	public Vec addInPlace(){
+		scratch.copy(a);
+		scratch.add(b);
+		return scratch;
+	}
+
+	@Benchmark
+	public Vec addStatic(){
+		return Vec.add(a, b);
+	}
+
+	@Benchmark
+	public Vec subtractStatic(){
+		return Vec.subtract(a, b);
+	}
+
+	@Benchmark
+	public Vec scalarMultiplyStatic(){
+		return Vec.scalarMultiply(a, 0.5);
+	}
+
+	@Benchmark
+	public double dot(){
+		return a.dot(b);
+	}
+
+	@Benchmark
+	public double mag(){
+		return a.getMag();
+	}
+
+	@Benchmark
+	public Vec normalizeStatic(){
+		return Vec.normalize(a);
+	}
+
+	@Benchmark
+	public Vec rotateInPlace(){
+		scratch.copy(a);
+		scratch.rotate(0.3);
+		return scratch;
+	}
+
+	@Benchmark
+	public Vec rotateStatic(){
+		return Vec.rotate(a, 0.3);
+	}
+
+}
@@ -33,17 +33,21 @@ public class CollisionBuffer {
 		obj1CollidedSide = new Vec(2);
 		obj2CollidedSide = new Vec(2);
 		
-		obj1Heading = obj1.getForward();
-		obj2Heading = obj2.getForward();
+		obj1Heading = obj1.getWorldForward();
+		obj2Heading = obj2.getWorldForward();
+		
+		//Compare world positions, so children of other objects collide where they are drawn
+		double x1 = obj1.getWorldPos().getComponent(0), y1 = obj1.getWorldPos().getComponent(1);
+		double x2 = obj2.getWorldPos().getComponent(0), y2 = obj2.getWorldPos().getComponent(1);
 		
 		//Get difference in left side of obj1 from right side of obj2 positions
-		double lrSideDistance = Math.abs(obj1.getXPos() - (obj2.getXPos() + obj2.getWidth()));
+		double lrSideDistance = Math.abs(x1 - (x2 + obj2.getWidth()));
 		//Get difference in right side of obj 1 from left side of obj2
-		double rlSideDistance = Math.abs((obj1.getXPos() + obj1.getWidth()) - obj2.getXPos());
+		double rlSideDistance = Math.abs((x1 + obj1.getWidth()) - x2);
 		//Get difference in top side of obj1 from bottom side of obj2
-		double tbSideDistance = Math.abs(obj1.getYPos() - (obj2.getYPos() + obj2.getHeight()));
+		double tbSideDistance = Math.abs(y1 - (y2 + obj2.getHeight()));
 		//Get difference in bottom side of obj1 to top side of obj2
-		double btSideDistance = Math.abs((obj1.getYPos() + obj1.getHeight()) - obj2.getYPos());
+		double btSideDistance = Math.abs((y1 + obj1.getHeight()) - y2);
 		
 		//Determine which distance is the smallest
 		if(lrSideDistance < rlSideDistance){
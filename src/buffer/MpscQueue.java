@@ -0,0 +1,82 @@
+package buffer;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A lock-free, unbounded queue which any number of threads may add to and a single thread takes from.
+ *
+ * Values are kept in a linked list of nodes. Adding swaps the new node in as the tail with a single atomic exchange
+ * and then links the old tail to it, so producers never wait on each other or on the consumer.
+ * The consumer owns the head and walks the links without any atomic operations.
+ * Values added by one thread come out in the order that thread added them.
+ *
+ * A value whose producer has swapped the tail but not yet linked it is not visible to the consumer,
+ * so {@link #poll()} may return null for a moment while a value is on its way. It will be seen by a later poll.
+ * @author Nex
+ *
+ * @param <T> The type of value queued
+ */
+public class MpscQueue<T> {
+
+	//Attributes
+	private final AtomicReference<Node<T>> tail;	//Most recently added node, swapped by producers
+	private Node<T> head;							//Node before the next value to take, owned by the consumer
+
+	/**
+	 * Constructs an empty queue
+	 */
+	public MpscQueue() {
+		head = new Node<T>(null);
+		tail = new AtomicReference<Node<T>>(head);
+	}
+
+	//Methods
+	/**
+	 * Adds a value to the queue. Safe to call from any thread.
+	 * @param value The value to add, not null
+	 */
+	public void offer(T value){
+		if(value == null) throw new NullPointerException("Can not queue null.");
+		Node<T> node = new Node<T>(value);
+		Node<T> previous = tail.getAndSet(node);
+		previous.next = node;
+	}
+
+	/**
+	 * Takes the oldest visible value from the queue. Only call this from the consumer thread.
+	 * @return The value, or null if no value is visible
+	 */
+	public T poll(){
+		Node<T> next = head.next;
+		if(next == null) return null;
+		T value = next.value;
+		//The taken node becomes the new head, drop its value so it is not kept alive
+		next.value = null;
+		head = next;
+		return value;
+	}
+
+	/**
+	 * Gets whether there are no values in the queue, including values still being added.
+	 * Only call this from the consumer thread.
+	 * @return True if nothing has been added since the last value was taken
+	 */
+	public boolean isEmpty(){
+		return head == tail.get();
+	}
+
+	/**
+	 * A link in the queue
+	 * @param <T> The type of value held
+	 */
+	private static class Node<T> {
+		//Attributes
+		private T value;
+		private volatile Node<T> next;
+
+		private Node(T value){
+			this.value = value;
+		}
+	}
+
+}
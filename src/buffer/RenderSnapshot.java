@@ -0,0 +1,392 @@
+package buffer;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RectangularShape;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import levels.StaticGeometry;
+import mathematics.Vec;
+import objects.EntityStore;
+import objects.GameObject;
+import objects.OffHeapBodyStore;
+import sprites.Sprite;
+import state.object.ObjectState;
+
+/**
+ * A buffer which holds everything needed to draw one tick of the world.
+ *
+ * The simulation captures a snapshot after each tick and hands it to the renderer through a {@link TripleBuffer}.
+ * Once published a snapshot is never written to while the renderer holds it, so the renderer
+ * always draws a complete tick no matter what the simulation is doing.
+ * Snapshots are reused, their arrays only grow when a tick has more visible objects than any before it.
+ * @author Nex
+ *
+ */
+public class RenderSnapshot {
+
+	//Immutable Attributes
+	private static final RectangularShape ENTITY_SHAPE = new Rectangle2D.Double();	//Shape every entity is drawn as
+
+	//Attributes
+	private int count;
+	private double[] previousX, previousY;		//Position at the start of the tick
+	private double[] x, y;						//Position at the end of the tick
+	private double[] rotationCos, rotationSin;	//Cosine and sine of the angle faced at the end of the tick
+	private double[] width, height;
+	private Sprite[] sprites;
+	private int[] frameX, frameY;
+	private RectangularShape[] shapes;
+	private Color[] colors;
+	private ObjectState[] states;
+	private GameObject[] stateOwners;			//Object each state draws for, needed by states shared between objects
+	private ArrayList<OffHeapBodyStore> bodies;	//Copies of every off heap body store, owned by this snapshot
+	private int bodyCount;						//Number of copies in use this tick
+	private ArrayList<StaticGeometry> geometry;	//Static geometry to draw behind the objects, shared with the simulation but never changed
+	private double previousCameraX, previousCameraY;
+	private double cameraX, cameraY;
+
+	//Renderer owned attributes
+	private HashMap<Class<?>, RectangularShape> scratchShapes;	//Shapes the renderer sizes and fills, so object shapes are never touched
+
+	//Simulation owned attributes
+	private Vec previousScratch;				//Receives each child object's previous world position during capture
+
+	/**
+	 * Constructs an empty render snapshot
+	 */
+	public RenderSnapshot() {
+		count = 0;
+		allocate(64);
+		bodies = new ArrayList<OffHeapBodyStore>();
+		bodyCount = 0;
+		geometry = new ArrayList<StaticGeometry>();
+		scratchShapes = new HashMap<Class<?>, RectangularShape>();
+		previousScratch = new Vec(2);
+	}
+
+	//Accessors
+	/**
+	 * Gets the number of objects in this snapshot
+	 * @return The number of visible objects captured
+	 */
+	public int getCount(){
+		return count;
+	}
+
+	/**
+	 * Gets the camera's X position between the start and end of the tick
+	 * @param alpha How far between the start and end of the tick, 0 to 1
+	 * @return The interpolated camera X position
+	 */
+	public double getCameraX(double alpha){
+		return previousCameraX + (cameraX - previousCameraX) * alpha;
+	}
+
+	/**
+	 * Gets the camera's Y position between the start and end of the tick
+	 * @param alpha How far between the start and end of the tick, 0 to 1
+	 * @return The interpolated camera Y position
+	 */
+	public double getCameraY(double alpha){
+		return previousCameraY + (cameraY - previousCameraY) * alpha;
+	}
+
+	//Methods
+	/**
+	 * Records every visible object in a list, along with the camera position.
+	 * Only call this from the simulation thread, on a snapshot which has not been published.
+	 * @param objects The objects to capture
+	 * @param previousCamera The camera position at the start of the tick
+	 * @param camera The camera position at the end of the tick
+	 */
+	public void capture(List<GameObject> objects, Vec previousCamera, Vec camera){
+		capture(objects, Collections.<EntityStore>emptyList(), previousCamera, camera);
+	}
+
+	/**
+	 * Records every visible object and every visible entity, along with the camera position.
+	 * Entities are drawn after objects, as rectangles filled with their color.
+	 * Only call this from the simulation thread, on a snapshot which has not been published.
+	 * @param objects The objects to capture
+	 * @param stores The entity stores to capture
+	 * @param previousCamera The camera position at the start of the tick
+	 * @param camera The camera position at the end of the tick
+	 */
+	public void capture(List<GameObject> objects, List<EntityStore> stores, Vec previousCamera, Vec camera){
+		capture(objects, stores, Collections.<StaticGeometry>emptyList(), previousCamera, camera);
+	}
+
+	/**
+	 * Records every visible object and every visible entity, along with the static geometry and the camera position.
+	 * Static geometry is drawn first, behind everything else. It is never copied, since it never changes once added to a state.
+	 * Only call this from the simulation thread, on a snapshot which has not been published.
+	 * @param objects The objects to capture
+	 * @param stores The entity stores to capture
+	 * @param staticGeometry The static geometry to draw
+	 * @param previousCamera The camera position at the start of the tick
+	 * @param camera The camera position at the end of the tick
+	 */
+	public void capture(List<GameObject> objects, List<EntityStore> stores, List<StaticGeometry> staticGeometry, Vec previousCamera, Vec camera){
+		capture(objects, stores, Collections.<OffHeapBodyStore>emptyList(), staticGeometry, previousCamera, camera);
+	}
+
+	/**
+	 * Records every visible object, entity and off heap body, along with the static geometry and the camera position.
+	 * Each body store is copied into a store owned by this snapshot with one bulk copy, and its visible bodies
+	 * are drawn after the objects and entities.
+	 * Only call this from the simulation thread, on a snapshot which has not been published.
+	 * @param objects The objects to capture
+	 * @param stores The entity stores to capture
+	 * @param bodyStores The off heap body stores to capture
+	 * @param staticGeometry The static geometry to draw
+	 * @param previousCamera The camera position at the start of the tick
+	 * @param camera The camera position at the end of the tick
+	 */
+	public void capture(List<GameObject> objects, List<EntityStore> stores, List<OffHeapBodyStore> bodyStores,
+			List<StaticGeometry> staticGeometry, Vec previousCamera, Vec camera){
+		for(bodyCount = 0; bodyCount < bodyStores.size(); bodyCount++){
+			if(bodyCount == bodies.size()) bodies.add(new OffHeapBodyStore(bodyStores.get(bodyCount).size()));
+			bodyStores.get(bodyCount).copyTo(bodies.get(bodyCount));
+		}
+
+		geometry.clear();
+		geometry.addAll(staticGeometry);
+
+		int needed = objects.size();
+		for(EntityStore store : stores){
+			needed += store.size();
+		}
+		if(x.length < needed){
+			allocate(Math.max(needed, x.length * 2));
+		}
+
+		int i = 0;
+		for(GameObject obj : objects){
+			if(!obj.isVisible()) continue;
+
+			//The world transform is cached, and only rebuilt when the object or an ancestor moved or turned
+			AffineTransform world = obj.getWorldTransform();
+			Vec previous = obj.getPreviousTickWorldPos(previousScratch);
+
+			previousX[i] = previous.getComponent(0);
+			previousY[i] = previous.getComponent(1);
+			x[i] = world.getTranslateX();
+			y[i] = world.getTranslateY();
+			rotationCos[i] = world.getScaleX();
+			rotationSin[i] = world.getShearY();
+			width[i] = obj.getWidth();
+			height[i] = obj.getHeight();
+
+			Sprite sprite = obj.getSprite();
+			sprites[i] = sprite;
+			if(sprite != null){
+				frameX[i] = sprite.getFrameXPos();
+				frameY[i] = sprite.getFrameYPos();
+			}
+			shapes[i] = obj.getShape();
+			colors[i] = obj.getColor();
+			states[i] = obj.isRunning() ? obj.getCurrentState() : null;
+			stateOwners[i] = states[i] != null ? obj : null;
+
+			i++;
+		}
+
+		for(EntityStore store : stores){
+			i = captureEntities(store, i);
+		}
+
+		//Release references left over from a larger tick
+		for(int j = i; j < count; j++){
+			sprites[j] = null;
+			shapes[j] = null;
+			colors[j] = null;
+			states[j] = null;
+			stateOwners[j] = null;
+		}
+		count = i;
+
+		previousCameraX = previousCamera.getComponent(0);
+		previousCameraY = previousCamera.getComponent(1);
+		cameraX = camera.getComponent(0);
+		cameraY = camera.getComponent(1);
+	}
+
+	/**
+	 * Records every visible entity in a store
+	 * @param store The store to capture
+	 * @param i Index to record the first entity at
+	 * @return Index after the last entity recorded
+	 */
+	private int captureEntities(EntityStore store, int i){
+		int[] flags = store.getFlags();
+		double[] ex = store.getX(), ey = store.getY();
+		double[] epx = store.getPreviousX(), epy = store.getPreviousY();
+		double[] efx = store.getForwardX(), efy = store.getForwardY();
+		double[] ew = store.getWidth(), eh = store.getHeight();
+		Color[] ec = store.getColors();
+
+		for(int e = 0; e < store.size(); e++){
+			if((flags[e] & EntityStore.VISIBLE) == 0) continue;
+
+			previousX[i] = epx[e];
+			previousY[i] = epy[e];
+			x[i] = ex[e];
+			y[i] = ey[e];
+			double length = Math.sqrt(efx[e] * efx[e] + efy[e] * efy[e]);
+			rotationCos[i] = length > 0 ? efx[e] / length : 1;
+			rotationSin[i] = length > 0 ? efy[e] / length : 0;
+			width[i] = ew[e];
+			height[i] = eh[e];
+			sprites[i] = null;
+			shapes[i] = ENTITY_SHAPE;
+			colors[i] = ec[e];
+			states[i] = null;
+			stateOwners[i] = null;
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Draws every object in this snapshot, interpolated between the start and end of the tick.
+	 * Only call this from the render thread, on the front buffer.
+	 *
+	 * Objects are drawn exactly as {@link GameObject#draw(Graphics2D, double)} would draw them.
+	 * Object states still draw their effects from their live data, so any state which overrides
+	 * drawEffects must tolerate being read while the simulation runs.
+	 * Static geometry is drawn first, only the part inside the renderer's clip.
+	 * @param g2d Renderer, already in the camera's coordinate system
+	 * @param alpha How far between the start and end of the tick to draw, 0 to 1
+	 */
+	public void draw(Graphics2D g2d, double alpha){
+		Rectangle2D view = g2d.getClipBounds();
+		for(int i = 0; i < geometry.size(); i++){
+			geometry.get(i).draw(g2d, view);
+		}
+
+		AffineTransform savedState = g2d.getTransform();
+		AffineTransform localSystem = new AffineTransform();
+		double sx = savedState.getScaleX(), shy = savedState.getShearY();
+		double shx = savedState.getShearX(), sy = savedState.getScaleY();
+		double tx = savedState.getTranslateX(), ty = savedState.getTranslateY();
+
+		for(int i = 0; i < count; i++){
+			//Construct the local system directly from the captured rotation, rather than translating and rotating a copy of the camera's
+			double px = previousX[i] + (x[i] - previousX[i]) * alpha;
+			double py = previousY[i] + (y[i] - previousY[i]) * alpha;
+			double cos = rotationCos[i], sin = rotationSin[i];
+			localSystem.setTransform(sx * cos + shx * sin, shy * cos + sy * sin,
+					shx * cos - sx * sin, sy * cos - shy * sin,
+					sx * px + shx * py + tx, shy * px + sy * py + ty);
+			g2d.setTransform(localSystem);
+
+			if(sprites[i] != null){
+				sprites[i].draw(g2d, frameX[i], frameY[i], 0, 0, (int)width[i], (int)height[i]);
+			}
+			else if(shapes[i] != null){
+				RectangularShape shape = getScratchShape(shapes[i]);
+				shape.setFrame(-width[i] / 2, -height[i] / 2, width[i], height[i]);
+				g2d.setColor(colors[i]);
+				g2d.fill(shape);
+			}
+
+			if(states[i] != null){
+				states[i].drawEffects(stateOwners[i], g2d);
+			}
+		}
+
+		//Revert back to saved coordinate system.
+		g2d.setTransform(savedState);
+
+		for(int b = 0; b < bodyCount; b++){
+			drawBodies(g2d, bodies.get(b), alpha);
+		}
+	}
+
+	/**
+	 * Fills every visible body in a store with the store's color, interpolated between the start and end of the tick
+	 * @param g2d Renderer, already in the camera's coordinate system
+	 * @param store This snapshot's copy of the store
+	 * @param alpha How far between the start and end of the tick to draw, 0 to 1
+	 */
+	private void drawBodies(Graphics2D g2d, OffHeapBodyStore store, double alpha){
+		Rectangle2D.Double rect = (Rectangle2D.Double)getScratchShape(ENTITY_SHAPE);
+		g2d.setColor(store.getColor());
+		for(int i = 0; i < store.size(); i++){
+			if((store.getFlags(i) & EntityStore.VISIBLE) == 0) continue;
+			double px = store.getPreviousX(i), py = store.getPreviousY(i);
+			double w = store.getWidthAt(i), h = store.getHeightAt(i);
+			//Centered on the position, the same way objects and entities are drawn
+			rect.setRect(px + (store.getX(i) - px) * alpha - w / 2, py + (store.getY(i) - py) * alpha - h / 2, w, h);
+			g2d.fill(rect);
+		}
+	}
+
+	/**
+	 * Gets a renderer owned shape of the same type as an object's shape
+	 * @param objShape The shape belonging to the object
+	 * @return A shape of the same type which only the renderer uses
+	 */
+	private RectangularShape getScratchShape(RectangularShape objShape){
+		RectangularShape scratch = scratchShapes.get(objShape.getClass());
+		if(scratch == null){
+			scratch = (RectangularShape)objShape.clone();
+			scratchShapes.put(objShape.getClass(), scratch);
+		}
+		return scratch;
+	}
+
+	/**
+	 * Resizes every array to hold a given number of objects, keeping the current contents
+	 * @param capacity The number of objects to make room for
+	 */
+	private void allocate(int capacity){
+		previousX = copyOf(previousX, capacity);
+		previousY = copyOf(previousY, capacity);
+		x = copyOf(x, capacity);
+		y = copyOf(y, capacity);
+		rotationCos = copyOf(rotationCos, capacity);
+		rotationSin = copyOf(rotationSin, capacity);
+		width = copyOf(width, capacity);
+		height = copyOf(height, capacity);
+		frameX = copyOf(frameX, capacity);
+		frameY = copyOf(frameY, capacity);
+
+		Sprite[] newSprites = new Sprite[capacity];
+		RectangularShape[] newShapes = new RectangularShape[capacity];
+		Color[] newColors = new Color[capacity];
+		ObjectState[] newStates = new ObjectState[capacity];
+		GameObject[] newStateOwners = new GameObject[capacity];
+		if(sprites != null){
+			System.arraycopy(sprites, 0, newSprites, 0, count);
+			System.arraycopy(shapes, 0, newShapes, 0, count);
+			System.arraycopy(colors, 0, newColors, 0, count);
+			System.arraycopy(states, 0, newStates, 0, count);
+			System.arraycopy(stateOwners, 0, newStateOwners, 0, count);
+		}
+		sprites = newSprites;
+		shapes = newShapes;
+		colors = newColors;
+		states = newStates;
+		stateOwners = newStateOwners;
+	}
+
+	private double[] copyOf(double[] array, int capacity){
+		double[] copy = new double[capacity];
+		if(array != null) System.arraycopy(array, 0, copy, 0, count);
+		return copy;
+	}
+
+	private int[] copyOf(int[] array, int capacity){
+		int[] copy = new int[capacity];
+		if(array != null) System.arraycopy(array, 0, copy, 0, count);
+		return copy;
+	}
+
+}
@@ -0,0 +1,71 @@
+package buffer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A lock-free triple buffer which hands complete values from a single writer thread to a single reader thread.
+ * 
+ * The writer fills the back buffer and publishes it, the reader takes the most recently published buffer as its front buffer.
+ * The third buffer sits between them, so neither side ever waits on the other and the reader never sees
+ * a buffer the writer is still filling. If the writer publishes several times before the reader reads,
+ * only the newest buffer is seen.
+ * @author Nex
+ *
+ * @param <T> The type of value being buffered
+ */
+public class TripleBuffer<T> {
+
+	//Immutable Attributes
+	private static final int INDEX_MASK = 3;
+	private static final int DIRTY = 4;		//Set on the middle index when it holds a buffer the reader has not taken yet
+
+	//Attributes
+	private final Object[] buffers;
+	private final AtomicInteger middle;		//Index of the buffer sitting between the writer and the reader, plus the dirty flag
+	private int back;						//Index of the buffer owned by the writer
+	private int front;						//Index of the buffer owned by the reader
+
+	/**
+	 * Constructs a triple buffer from three distinct buffers
+	 * @param first Initial front buffer
+	 * @param second Initial middle buffer
+	 * @param third Initial back buffer
+	 */
+	public TripleBuffer(T first, T second, T third) {
+		buffers = new Object[] { first, second, third };
+		front = 0;
+		middle = new AtomicInteger(1);
+		back = 2;
+	}
+
+	/**
+	 * Gets the buffer the writer should fill. Only call this from the writer thread.
+	 * @return The back buffer
+	 */
+	@SuppressWarnings("unchecked")
+	public T getBack(){
+		return (T)buffers[back];
+	}
+
+	/**
+	 * Publishes the back buffer so the reader can take it,
+	 * and gives the writer a new back buffer. Only call this from the writer thread.
+	 */
+	public void publish(){
+		back = middle.getAndSet(back | DIRTY) & INDEX_MASK;
+	}
+
+	/**
+	 * Gets the most recently published buffer. Only call this from the reader thread.
+	 * The returned buffer will not be touched by the writer until the next call to getFront.
+	 * @return The front buffer
+	 */
+	@SuppressWarnings("unchecked")
+	public T getFront(){
+		if((middle.get() & DIRTY) != 0){
+			front = middle.getAndSet(front) & INDEX_MASK;
+		}
+		return (T)buffers[front];
+	}
+
+}
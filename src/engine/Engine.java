@@ -1,15 +1,14 @@
 package engine;
 
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.util.EmptyStackException;
 import java.util.Stack;
 
-import javax.swing.Timer;
-
 import mathematics.Vec;
 import objects.GameObject;
+import buffer.RenderSnapshot;
+import buffer.TripleBuffer;
 import engine.manager.*;
+import engine.metrics.EngineMetrics;
+import engine.metrics.Histogram;
 import state.*;
 import state.engine.*;
 
@@ -24,7 +23,13 @@ import state.engine.*;
 public class Engine {
 
 	//Static variables
-	public static Engine currentInstance;
+	/**
+	 * The most recently constructed engine.
+	 * Kept for game code written against a single engine, the engine itself never reads it.
+	 * Code which may run with several engines in one JVM should use {@link state.engine.EngineState#getEngine()}
+	 * or {@link Manager#getEngine()} instead.
+	 */
+	public static volatile Engine currentInstance;
 
 	//Enums
 	public enum Managers{
@@ -32,10 +37,19 @@ public class Engine {
 	}
 
 	//Attributes
-	private boolean running;
+	private volatile boolean running;
+	private boolean headless;
 	private Stack<EngineState> stateStack;
-	private Manager[] managers;
-	private Timer drawTimer;
+	private ManagerScheduler managers;
+	private TripleBuffer<RenderSnapshot> renderBuffer;	//Hands a snapshot of each tick from the simulation to the renderer
+	private EngineMetrics metrics;
+	private Histogram tickTiming, stateTiming;
+
+	//Timing attributes
+	private int tickRate;						//Number of fixed simulation ticks per second
+	private int frameRate;						//Maximum number of frames drawn per second
+	private int maxCatchUpTicks;				//Maximum number of ticks run back to back before the backlog is dropped
+	private volatile double interpolationAlpha;	//Fraction of a tick which has elapsed since the last tick, used to smooth drawing
 
 	
 	//Accessors / Modifiers
@@ -44,6 +58,7 @@ public class Engine {
 	 * @param newState State to push as new current state
 	 */
 	public void pushState(EngineState newState){
+		newState.setEngine(this);
 		stateStack.push(newState);
 	}
 	
@@ -51,12 +66,9 @@ public class Engine {
 	 * Pops the current state off of the stack if there is one
 	 */
 	public void popState(){
-		try{
+		if(!stateStack.isEmpty()){
 			stateStack.pop();
 		}
-		catch(EmptyStackException e){
-			System.out.println("No state to pop from engine state stack.");
-		}
 	}
 	
 	/**
@@ -64,17 +76,105 @@ public class Engine {
 	 * @return The state on top of the state stack
 	 */
 	public EngineState getCurrentState(){
-		
-		EngineState returnState;
-		try{
-			returnState = stateStack.peek();
-		}
-		catch(EmptyStackException e){
-			returnState = null;
-			System.out.println("No state to get from engine.");
+		if(stateStack.isEmpty()){
+			return null;
 		}
-		
-		return returnState;
+		return stateStack.peek();
+	}
+	
+	/**
+	 * Gets the number of fixed simulation ticks run per second
+	 * @return The tick rate of the engine
+	 */
+	public int getTickRate(){
+		return tickRate;
+	}
+	
+	/**
+	 * Sets the number of fixed simulation ticks run per second.
+	 * Values below 1 are clamped to 1.
+	 * @param ticksPerSecond The new tick rate
+	 */
+	public void setTickRate(int ticksPerSecond){
+		tickRate = Math.max(1, ticksPerSecond);
+	}
+	
+	/**
+	 * Gets the length of a single simulation tick
+	 * @return The number of seconds simulated by each tick
+	 */
+	public double getTickDelta(){
+		return 1.0 / tickRate;
+	}
+	
+	/**
+	 * Gets the maximum number of frames drawn per second
+	 * @return The frame rate cap of the engine
+	 */
+	public int getFrameRate(){
+		return frameRate;
+	}
+	
+	/**
+	 * Sets the maximum number of frames drawn per second.
+	 * Values below 1 are clamped to 1.
+	 * @param framesPerSecond The new frame rate cap
+	 */
+	public void setFrameRate(int framesPerSecond){
+		frameRate = Math.max(1, framesPerSecond);
+	}
+	
+	/**
+	 * Gets the maximum number of ticks the engine will run back to back
+	 * when it has fallen behind. Any time owed beyond this is dropped.
+	 * @return The catch-up tick cap
+	 */
+	public int getMaxCatchUpTicks(){
+		return maxCatchUpTicks;
+	}
+	
+	/**
+	 * Sets the maximum number of ticks the engine will run back to back
+	 * when it has fallen behind. Values below 1 are clamped to 1.
+	 * @param maxTicks The new catch-up tick cap
+	 */
+	public void setMaxCatchUpTicks(int maxTicks){
+		maxCatchUpTicks = Math.max(1, maxTicks);
+	}
+	
+	/**
+	 * Gets how far between the previous tick and the next tick the engine currently is.
+	 * 0 means a tick just ran, values approaching 1 mean the next tick is about to run.
+	 * @return The interpolation alpha to draw objects with
+	 */
+	public double getInterpolationAlpha(){
+		return interpolationAlpha;
+	}
+	
+	
+	/**
+	 * Gets the timing histograms and counters recorded by this engine
+	 * @return The engine's metrics
+	 */
+	public EngineMetrics getMetrics(){
+		return metrics;
+	}
+	
+	/**
+	 * Gets the buffer holding the most recent render snapshot.
+	 * The renderer should only ever read the front buffer.
+	 * @return The render buffer, or null if the engine is headless
+	 */
+	public TripleBuffer<RenderSnapshot> getRenderBuffer(){
+		return renderBuffer;
+	}
+	
+	/**
+	 * Gets whether this engine is running without a window
+	 * @return True if the engine is headless
+	 */
+	public boolean isHeadless(){
+		return headless;
 	}
 	
 	
@@ -82,6 +182,17 @@ public class Engine {
 	 * Constructs an engine
 	 */
 	public Engine() {
+		this(false);
+	}
+
+	/**
+	 * Constructs an engine which optionally runs without a window.
+	 * A headless engine uses stub screen and input managers, never draws,
+	 * and runs ticks back to back as fast as it can instead of at the tick rate.
+	 * @param headless Whether the engine should run without a window
+	 */
+	public Engine(boolean headless) {
+		this.headless = headless;
 		init();
 	}
 
@@ -95,25 +206,40 @@ public class Engine {
 
 		//Set internal variables
 		running = false;
+		tickRate = 60;
+		frameRate = 60;
+		maxCatchUpTicks = 5;
+		interpolationAlpha = 0;
 
 		//Initialize state stack
 		stateStack = new Stack<EngineState>();
 
-		//Create managers
-		managers = new Manager[6];
+		//Create metrics before any manager, so managers can record from their first update
+		metrics = new EngineMetrics();
+		tickTiming = metrics.getHistogram(EngineMetrics.TICK);
+		stateTiming = metrics.getHistogram(EngineMetrics.ENGINE_STATE_UPDATE);
+
+		//Create the render buffer before the screen exists, so the first paint has something to read
+		if(!headless){
+			renderBuffer = new TripleBuffer<RenderSnapshot>(new RenderSnapshot(), new RenderSnapshot(), new RenderSnapshot());
+		}
+
+		//Create managers. Registration order is the update order of managers which conflict.
+		managers = new ManagerScheduler();
+		managers.setMetrics(metrics);
 
 		//Create input manager
-		managers[Managers.INPUTMANAGER.ordinal()] = new InputManager();
+		registerManager(Managers.INPUTMANAGER, headless ? new HeadlessInputManager(this) : new InputManager(this));
 		//Creates collision manager
-		managers[Managers.COLLISIONMANAGER.ordinal()] = new CollisionManager();
+		registerManager(Managers.COLLISIONMANAGER, new CollisionManager(this));
 		//Creates content manager, uses ImageLoader, SpriteLoader, and LevelLoader to load content during initialization
-		managers[Managers.CONTENTMANAGER.ordinal()] = new ContentManager();
+		registerManager(Managers.CONTENTMANAGER, new ContentManager(this));
 		//Create the camera manager
-		managers[Managers.CAMERAMANAGER.ordinal()] = new CameraManager();
+		registerManager(Managers.CAMERAMANAGER, new CameraManager(this));
 		//Creates the screen manager, hooking up input manager to the game window.
-		managers[Managers.SCREENMANAGER.ordinal()] = new ScreenManager();
+		registerManager(Managers.SCREENMANAGER, headless ? new HeadlessScreenManager(this) : new ScreenManager(this));
 		//Creates the Sprite Manager
-		managers[Managers.SPRITEMANAGER.ordinal()] = new SpriteManager();
+		registerManager(Managers.SPRITEMANAGER, new SpriteManager(this));
 
 
 		//Create the current state
@@ -122,21 +248,6 @@ public class Engine {
 		
 		//Create objects!
 		//((GameState)currentState).loadNextLevel();
-		
-		//Create timer for screen manager
-		drawTimer = new Timer(1000/60, new ActionListener(){
-
-			@Override
-			public void actionPerformed(ActionEvent arg0) {
-				//Update camera
-				managers[Engine.Managers.CAMERAMANAGER.ordinal()].update();
-				//Update screen
-				managers[Engine.Managers.SCREENMANAGER.ordinal()].update();
-			}
-
-		});
-
-		drawTimer.setRepeats(true);
 
 	}
 
@@ -147,43 +258,212 @@ public class Engine {
 	{		
 		//Set running to true
 		running = true;
-		//Begin drawloop
-		drawTimer.start();
 		//Run
-		run();
+		try{
+			if(headless) runHeadless();
+			else run();
+		}
+		finally{
+			managers.shutdown();
+		}
+	}
+	
+	/**
+	 * Stops the engine. The run loop will exit after finishing its current tick.
+	 */
+	public void stop()
+	{
+		running = false;
 	}
 	
 
 	/**
 	 * This is the run loop for the engine.
-	 * Constantly updates the current state of the engine.
+	 * Runs the simulation in fixed size ticks using an accumulator of elapsed time.
+	 * If the engine falls behind, at most maxCatchUpTicks are run before the remaining backlog is dropped.
+	 * Between ticks the screen is drawn at most frameRate times per second, and the
+	 * loop sleeps until the next tick or frame is due instead of spinning.
 	 */
 	private void run()
+	{
+		long previousTime = System.nanoTime();
+		long accumulator = 0;
+		long nextFrameTime = previousTime;
+
+		while(running)
+		{
+			long tickNanos = 1000000000L / tickRate;
+			long frameNanos = 1000000000L / frameRate;
+
+			//Accumulate time passed since last iteration
+			long currentTime = System.nanoTime();
+			accumulator += currentTime - previousTime;
+			previousTime = currentTime;
+
+			//Run every tick that is owed, up to the catch-up cap
+			int ticksRun = 0;
+			while(accumulator >= tickNanos && ticksRun < maxCatchUpTicks){
+				tick();
+				accumulator -= tickNanos;
+				ticksRun++;
+			}
+			//If we are still behind, drop the backlog instead of spiraling
+			if(accumulator >= tickNanos){
+				accumulator %= tickNanos;
+			}
+
+			interpolationAlpha = (double)accumulator / (double)tickNanos;
+
+			//Draw if a frame is due
+			if(currentTime >= nextFrameTime){
+				render();
+				nextFrameTime = currentTime + frameNanos;
+			}
+
+			//Sleep until the next tick or frame is due
+			long nextTickTime = currentTime + (tickNanos - accumulator);
+			long sleepNanos = Math.min(nextTickTime, nextFrameTime) - System.nanoTime();
+			if(sleepNanos > 0){
+				try{
+					Thread.sleep(sleepNanos / 1000000L, (int)(sleepNanos % 1000000L));
+				}
+				catch(InterruptedException e){
+					Thread.currentThread().interrupt();
+					running = false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs a number of ticks back to back on the calling thread, then returns.
+	 * Nothing is drawn and no time is waited for, which makes this the way to drive
+	 * headless engines from a thread pool, see {@link SimulationFarm}.
+	 * @param count The number of ticks to run
+	 */
+	public void runTicks(int count)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			tick();
+		}
+	}
+
+	/**
+	 * This is the run loop for a headless engine.
+	 * There is nothing to draw and nothing to wait for, so ticks run back to back at full speed.
+	 */
+	private void runHeadless()
 	{
 		while(running)
 		{
-			//Update managers
-			managers[Managers.INPUTMANAGER.ordinal()].update();
-
-			//TODO: Offload to statemanager to keep track of stateStack
-			getCurrentState().update();
-			managers[Managers.SPRITEMANAGER.ordinal()].update();
-			//After objects update, update collisions.
-			managers[Managers.COLLISIONMANAGER.ordinal()].update();
+			tick();
+		}
+	}
+
+	/**
+	 * Runs a single fixed simulation tick.
+	 * Runs the PRE_UPDATE managers, updates the current state, runs the POST_UPDATE managers,
+	 * then publishes a snapshot of the tick for the renderer.
+	 */
+	private void tick()
+	{
+		long tickStart = System.nanoTime();
+
+		//Update managers which prepare for the tick, such as input and the sprite clock
+		managers.runPhase(Manager.Phase.PRE_UPDATE);
+
+		//TODO: Offload to statemanager to keep track of stateStack
+		EngineState state = getCurrentState();
+		long stateStart = System.nanoTime();
+		state.update();
+		stateTiming.record(System.nanoTime() - stateStart);
+		metrics.getCounter(EngineMetrics.OBJECTS_UPDATED).add(state.getUpdatedCount());
+		metrics.getCounter(EngineMetrics.OBJECTS_ASLEEP).add(state.getSleepingCount());
+
+		//After objects update, update managers which react to them, such as collisions and the camera
+		managers.runPhase(Manager.Phase.POST_UPDATE);
+		//Let category views catch up with anything managers changed, such as triggers hiding objects
+		state.applyCategoryChanges();
+
+		if(renderBuffer != null){
+			publishSnapshot();
 		}
+
+		tickTiming.record(System.nanoTime() - tickStart);
+		metrics.endTick();
+	}
+
+	/**
+	 * Captures the current state and camera into the back render buffer and publishes it
+	 */
+	private void publishSnapshot()
+	{
+		CameraManager cam = (CameraManager)getManager(Managers.CAMERAMANAGER);
+		RenderSnapshot snapshot = renderBuffer.getBack();
+		EngineState state = getCurrentState();
+		snapshot.capture(state.getVisibles(), state.getEntityStores(), state.getBodyStores(), state.getStaticGeometry(),
+				cam.getPreviousPosition(), cam.getPosition());
+		renderBuffer.publish();
+	}
+
+	/**
+	 * Draws a frame.
+	 * Runs the RENDER managers, which asks the screen to repaint from the most recent snapshot.
+	 */
+	private void render()
+	{
+		managers.runPhase(Manager.Phase.RENDER);
 	}
 
 
 	/**
 	 * Gets an engine components manager.
-	 * Index values are as follows:
-	 * 0 - Input Manager
-	 * 1 - Screen Manager
-	 * @param index Index of the component manager needed
+	 * @param manager Which of the built in managers is needed
 	 * @return The desired component manager
 	 */
 	public Manager getManager(Managers manager){
-		return managers[manager.ordinal()];
+		return managers.getManager(manager.name());
+	}
+
+	/**
+	 * Gets a manager registered under a name.
+	 * Built in managers are registered under the names of their {@link Managers} value.
+	 * @param name Name the manager was registered under
+	 * @return The manager, or null if there is none
+	 */
+	public Manager getManager(String name){
+		return managers.getManager(name);
+	}
+
+	/**
+	 * Registers a manager with the engine, replacing any manager already registered under its name.
+	 * The manager will be updated in the phase it declares, alongside any managers it does not conflict with.
+	 * Only call this from the thread running the engine.
+	 * @param name Name to register the manager under
+	 * @param manager The manager to register
+	 */
+	public void registerManager(String name, Manager manager){
+		manager.setEngine(this);
+		managers.register(name, manager);
+	}
+
+	/**
+	 * Registers one of the built in managers with the engine
+	 * @param key Which built in manager this is
+	 * @param manager The manager to register
+	 */
+	public void registerManager(Managers key, Manager manager){
+		registerManager(key.name(), manager);
+	}
+
+	/**
+	 * Gets the scheduler which decides when each manager updates.
+	 * Also reports how long each phase took the last time it ran.
+	 * @return The engine's manager scheduler
+	 */
+	public ManagerScheduler getScheduler(){
+		return managers;
 	}
 
 }
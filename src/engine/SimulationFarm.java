@@ -0,0 +1,199 @@
+package engine;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs many independent headless {@link Engine}s at the same time on a thread pool.
+ *
+ * Each world is a separate engine built and populated on a worker thread, then run for a fixed number of ticks.
+ * Worlds share nothing but the JVM, so the farm scales with the number of cores available.
+ * Used for batch simulations, such as balancing runs and bot training, which would otherwise need a JVM per world.
+ * @author Nex
+ *
+ */
+public class SimulationFarm {
+
+	/**
+	 * Fills a newly created world with whatever it needs to simulate
+	 */
+	public interface WorldFactory {
+		/**
+		 * Populates a world. Called on the worker thread which will run the world.
+		 * @param engine A new headless engine
+		 * @param worldIndex Which world this is, from 0 to the number of worlds - 1
+		 */
+		void populate(Engine engine, int worldIndex);
+	}
+
+	/**
+	 * The outcome of running a farm
+	 */
+	public static class Result {
+
+		//Attributes
+		private final long totalTicks;
+		private final long elapsedNanos;
+		private final long[] worldNanos;
+		private final int ticksPerWorld;
+
+		private Result(long totalTicks, long elapsedNanos, long[] worldNanos, int ticksPerWorld){
+			this.totalTicks = totalTicks;
+			this.elapsedNanos = elapsedNanos;
+			this.worldNanos = worldNanos;
+			this.ticksPerWorld = ticksPerWorld;
+		}
+
+		/**
+		 * Gets the number of ticks run across every world
+		 * @return The total tick count
+		 */
+		public long getTotalTicks(){
+			return totalTicks;
+		}
+
+		/**
+		 * Gets the wall clock time taken to run every world, not including building them
+		 * @return The elapsed time in nanoseconds
+		 */
+		public long getElapsedNanos(){
+			return elapsedNanos;
+		}
+
+		/**
+		 * Gets the number of ticks run per second across every world
+		 * @return The aggregate tick rate
+		 */
+		public double getTicksPerSecond(){
+			return totalTicks / (elapsedNanos / 1e9);
+		}
+
+		/**
+		 * Gets the number of ticks a single world ran per second
+		 * @param worldIndex Which world
+		 * @return That world's tick rate
+		 */
+		public double getWorldTicksPerSecond(int worldIndex){
+			return ticksPerWorld / (worldNanos[worldIndex] / 1e9);
+		}
+
+		/**
+		 * Gets the number of worlds which were run
+		 * @return The world count
+		 */
+		public int getWorldCount(){
+			return worldNanos.length;
+		}
+
+		@Override
+		public String toString(){
+			return String.format("%d worlds, %d ticks in %.3fs, %.1f ticks/s", worldNanos.length, totalTicks, elapsedNanos / 1e9, getTicksPerSecond());
+		}
+	}
+
+	//Attributes
+	private int worldCount;
+	private int threadCount;
+	private WorldFactory factory;
+
+	/**
+	 * Constructs a farm using one thread per available core
+	 * @param worldCount The number of worlds to run
+	 * @param factory Populates each world
+	 */
+	public SimulationFarm(int worldCount, WorldFactory factory) {
+		this(worldCount, Runtime.getRuntime().availableProcessors(), factory);
+	}
+
+	/**
+	 * Constructs a farm
+	 * @param worldCount The number of worlds to run
+	 * @param threadCount The number of worlds to run at once
+	 * @param factory Populates each world
+	 */
+	public SimulationFarm(int worldCount, int threadCount, WorldFactory factory) {
+		this.worldCount = Math.max(0, worldCount);
+		this.threadCount = Math.max(1, threadCount);
+		this.factory = factory;
+	}
+
+	/**
+	 * Builds every world, then runs each one for a number of ticks and waits for them all to finish.
+	 * @param ticksPerWorld The number of ticks to run each world for
+	 * @return How long the worlds took to run
+	 */
+	public Result run(final int ticksPerWorld){
+		ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+		try{
+			//Build every world on the pool first, so building is not counted as simulation time
+			ArrayList<Future<Engine>> building = new ArrayList<Future<Engine>>(worldCount);
+			for(int i = 0; i < worldCount; i++){
+				final int worldIndex = i;
+				building.add(pool.submit(new Callable<Engine>(){
+					@Override
+					public Engine call() throws Exception {
+						Engine engine = new Engine(true);
+						factory.populate(engine, worldIndex);
+						return engine;
+					}
+				}));
+			}
+			ArrayList<Engine> worlds = new ArrayList<Engine>(worldCount);
+			for(Future<Engine> f : building){
+				worlds.add(await(f));
+			}
+
+			//Run every world
+			long start = System.nanoTime();
+			ArrayList<Future<Long>> running = new ArrayList<Future<Long>>(worldCount);
+			for(final Engine engine : worlds){
+				running.add(pool.submit(new Callable<Long>(){
+					@Override
+					public Long call() throws Exception {
+						long worldStart = System.nanoTime();
+						try{
+							engine.runTicks(ticksPerWorld);
+						}
+						finally{
+							engine.getScheduler().shutdown();
+						}
+						return System.nanoTime() - worldStart;
+					}
+				}));
+			}
+			long[] worldNanos = new long[worldCount];
+			for(int i = 0; i < worldCount; i++){
+				worldNanos[i] = await(running.get(i));
+			}
+			long elapsed = System.nanoTime() - start;
+
+			return new Result((long)ticksPerWorld * worldCount, elapsed, worldNanos, ticksPerWorld);
+		}
+		finally{
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Waits for a world's task to finish, rethrowing anything it threw
+	 * @param f The task to wait for
+	 * @return The task's result
+	 */
+	private static <T> T await(Future<T> f){
+		try{
+			return f.get();
+		}
+		catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting on a world.", e);
+		}
+		catch(ExecutionException e){
+			throw new RuntimeException("A world failed.", e.getCause());
+		}
+	}
+
+}
@@ -2,6 +2,7 @@ package engine.manager;
 
 import java.awt.Graphics2D;
 import java.awt.geom.AffineTransform;
+import java.util.Set;
 
 import objects.MovableGameObject;
 import engine.Engine;
@@ -17,6 +18,7 @@ public class CameraManager extends Manager {
 
 	//Attributes
 	private Vec position;
+	private Vec previousPosition;
 	private MovableGameObject follow;
 	private AffineTransform savedSystem;
 
@@ -29,6 +31,14 @@ public class CameraManager extends Manager {
 		return position;
 	}
 	
+	/**
+	 * Get the camera's position at the start of the most recent tick
+	 * @return The camera's previous position
+	 */
+	public Vec getPreviousPosition(){
+		return previousPosition;
+	}
+	
 	/**
 	 * Gets the gameobject the camera is currently following.
 	 * @return The vector the camera is currently snapping to
@@ -50,9 +60,10 @@ public class CameraManager extends Manager {
 	
 	/**
 	 * Constructs a camera
+	 * @param engine The engine this camera belongs to
 	 */
-	public CameraManager() {
-		super();
+	public CameraManager(Engine engine) {
+		super(engine);
 	}
 
 	/**
@@ -62,18 +73,37 @@ public class CameraManager extends Manager {
 	public void init() {
 		//Initialize camera at 0, 0
 		position = new Vec(2);
+		previousPosition = new Vec(2);
 		
 		//set follow vector to explicit null
 		follow = null;
 	}
 
 	/**
-	 * Snaps the camera to the follow vector if  it is not null
+	 * The camera reads the object it follows, so it runs after collisions have settled
+	 */
+	@Override
+	public Set<String> getReads(){
+		return resources(RESOURCE_OBJECTS);
+	}
+
+	/**
+	 * Snapping only writes the camera
+	 */
+	@Override
+	public Set<String> getWrites(){
+		return resources(RESOURCE_CAMERA);
+	}
+
+	/**
+	 * Snaps the camera to the followed object's world position if it is not null
+	 * Remembers where the camera was before snapping, so drawing can interpolate between the two.
 	 */
 	@Override
 	public void update() {
+		previousPosition.copy(position);
 		if(follow != null){
-			snapTo(follow.getPos());
+			snapTo(follow.getWorldPos());
 		}
 	}
 
@@ -90,22 +120,33 @@ public class CameraManager extends Manager {
 	 * @param g2d Reference to the graphics renderer
 	 */
 	public void constructCameraCoordinateSystem(Graphics2D g2d){
+		constructCameraCoordinateSystem(g2d, position.getComponent(0), position.getComponent(1));
+	}
+	
+	/**
+	 * Configures the renderer to adhere to a camera coordinate system centered on a given position.
+	 * Used to draw with a camera position recorded earlier rather than the camera's current position.
+	 * @param g2d Reference to the graphics renderer
+	 * @param cameraX X position to center the screen on
+	 * @param cameraY Y position to center the screen on
+	 */
+	public void constructCameraCoordinateSystem(Graphics2D g2d, double cameraX, double cameraY){
 		//Save the current system
 		savedSystem = new AffineTransform(g2d.getTransform());
 		
 		AffineTransform transform = g2d.getTransform();
 		
 		//Set translationVec to the negative of camera's position
-		Vec translationVec = Vec.scalarMultiply(position, -1);
+		Vec translationVec = new Vec(-cameraX, -cameraY);
 		
 		//Get reference to screenManager to get screen dimensions
-		ScreenManager screen = (ScreenManager)Engine.currentInstance.getManager(Managers.SCREENMANAGER);
+		ScreenManager screen = (ScreenManager)engine.getManager(Managers.SCREENMANAGER);
 		
 		//Add half of screen dimensions to translationVec
 		//Get the screen dimensions
 		Vec screenDimensions = new Vec(2);
-		screenDimensions.setComponent(0, screen.getWindow().getWidth());
-		screenDimensions.setComponent(1, screen.getWindow().getHeight());
+		screenDimensions.setComponent(0, screen.getWidth());
+		screenDimensions.setComponent(1, screen.getHeight());
 		//Scale by 1/2
 		screenDimensions.scalarMultiply(0.5);
 		//Add
@@ -1,9 +1,18 @@
 package engine.manager;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import objects.EntityStore;
 import objects.GameObject;
 import objects.MovableGameObject;
+import objects.OffHeapBodyStore;
 import triggers.Trigger;
 import engine.Engine;
+import engine.metrics.EngineMetrics;
+import levels.StaticGeometry;
+import state.engine.EngineState;
 import buffer.CollisionBuffer;
 
 
@@ -18,11 +27,16 @@ import buffer.CollisionBuffer;
  */
 public class CollisionManager extends Manager {
 
+	//Attributes
+	private ArrayList<GameObject> solids;			//Solid objects this tick, reused between ticks
+	private ArrayList<GameObject> solidMovables;	//Solid movable objects this tick, reused between ticks
+
 	/**
 	 * Constructs collision manager
+	 * @param engine The engine whose current state is checked for collisions
 	 */
-	public CollisionManager() {
-		super();
+	public CollisionManager(Engine engine) {
+		super(engine);
 	}
 
 	/**
@@ -30,7 +44,16 @@ public class CollisionManager extends Manager {
 	 */
 	@Override
 	public void init() {
+		solids = new ArrayList<GameObject>();
+		solidMovables = new ArrayList<GameObject>();
+	}
 
+	/**
+	 * Resolving collisions moves objects and pulls triggers
+	 */
+	@Override
+	public Set<String> getWrites(){
+		return resources(RESOURCE_OBJECTS);
 	}
 
 	/**
@@ -40,49 +63,201 @@ public class CollisionManager extends Manager {
 	 * 
 	 *  Upon detecting a collision it is resolved by reverting the 
 	 *  movablegameobject back to it's previousPosition, before the collision took place.
+	 *  
+	 *  Pairs where both objects are asleep are skipped. A sleeping object touched by an awake one is woken.
+	 *  
+	 *  Counts every pair tested and every trigger fired into the engine's metrics.
 	 */
 	@Override
 	public void update() {
-		for(GameObject obj1 : Engine.currentInstance.getCurrentState().getObjList()){
+		long pairsTested = 0;
+		long triggersFired = 0;
+
+		EngineState state = engine.getCurrentState();
+		List<GameObject> objList = state.getObjects();
+		//Only movable objects are ever reverted, so only they need to look for collisions
+		for(GameObject obj1 : state.getMovables()){
 			
-			if(obj1 instanceof MovableGameObject){
+			for(GameObject obj2 : objList){
+				if(obj1 == obj2) continue;
+				//Two sleepers can not have moved into each other
+				if(obj1.isAsleep() && obj2.isAsleep()) continue;
+				pairsTested++;
+				
+				//Get the collision buffer!
+				CollisionBuffer cBuff = new CollisionBuffer(obj1, obj2);
 				
-				for(GameObject obj2 : Engine.currentInstance.getCurrentState().getObjList()){
-					if(obj1 == obj2) continue;
+				if(obj1.isColliding(obj2) && obj2.isColliding(obj1)){
+					//Whichever object was asleep has been touched by an awake one
+					obj1.wake();
+					obj2.wake();
 					
-					//Get the collision buffer!
-					CollisionBuffer cBuff = new CollisionBuffer(obj1, obj2);
+					//Only revert if both objects are solid
+					if(obj1.isSolid() && obj2.isSolid())
+						((MovableGameObject)obj1).revert();
 					
-					if(obj1.isColliding(obj2) && obj2.isColliding(obj1)){
-						//Only revert if both objects are solid
-						if(obj1.isSolid() && obj2.isSolid())
-							((MovableGameObject)obj1).revert();
-						
-						//Triggers are pulled / activated even if objects aren't solid.
-						
-						//If object 1 is triggerable
-						if(obj1.isTriggerable()){
-							//For each trigger it has
-							for(Trigger t : obj1.getTriggers()){
-								t.action(obj2, cBuff);
-							}
+					//Triggers are pulled / activated even if objects aren't solid.
+					
+					//If object 1 is triggerable
+					if(obj1.isTriggerable()){
+						//For each trigger it has
+						for(Trigger t : obj1.getTriggers()){
+							t.action(obj2, cBuff);
+							triggersFired++;
 						}
-						
-						//If object 2 is triggerable
-						if(obj2.isTriggerable()){
-							//pull each trigger it has
-							for(Trigger t : obj2.getTriggers()){
-								t.action(obj1, cBuff);
-							}
-						}//Ends if obj2 is triggerable
-					}//Ends if colliding
+					}
 					
-				}//ends loop of possible colliding objects
-			
-			}//Ends if object is movable
-			
-		}//Ends loop of all objects
+					//If object 2 is triggerable
+					if(obj2.isTriggerable()){
+						//pull each trigger it has
+						for(Trigger t : obj2.getTriggers()){
+							t.action(obj1, cBuff);
+							triggersFired++;
+						}
+					}//Ends if obj2 is triggerable
+				}//Ends if colliding
+				
+			}//ends loop of possible colliding objects
+		
+		}//Ends loop of movable objects
+		
+		pairsTested += collideGeometry(state.getMovables());
+		pairsTested += collideEntities(objList, state.getMovables());
+		pairsTested += collideBodies(objList);
+		solids.clear();
+		solidMovables.clear();
+		
+		EngineMetrics metrics = engine.getMetrics();
+		metrics.getCounter(EngineMetrics.COLLISION_PAIRS_TESTED).add(pairsTested);
+		metrics.getCounter(EngineMetrics.TRIGGERS_FIRED).add(triggersFired);
 		
 	}//Ends update
+	
+	/**
+	 * Tests every awake, solid movable gameObject against the current state's static geometry,
+	 * reverting any which overlap a solid rectangle. Only the grid cells an object covers are searched.
+	 * No triggers are pulled, static geometry has none.
+	 * @param movables Every movable object in the current state
+	 * @return The number of object and geometry pairs tested
+	 */
+	private long collideGeometry(List<GameObject> movables){
+		List<StaticGeometry> geometry = engine.getCurrentState().getStaticGeometry();
+		if(geometry.isEmpty()) return 0;
+		
+		long pairsTested = 0;
+		for(GameObject obj : movables){
+			//Sleeping objects have not moved into anything
+			if(obj.isAsleep() || !obj.isSolid()) continue;
+			for(StaticGeometry g : geometry){
+				pairsTested++;
+				if(g.isColliding(obj)){
+					((MovableGameObject)obj).revert();
+					break;
+				}
+			}
+		}
+		return pairsTested;
+	}
+	
+	/**
+	 * Gathers the solid objects into the reused list, if they have not been gathered yet this tick
+	 * @param objList Every object in the current state
+	 */
+	private void gatherSolids(List<GameObject> objList){
+		if(!solids.isEmpty()) return;
+		for(GameObject obj : objList){
+			if(obj.isSolid()) solids.add(obj);
+		}
+	}
+
+	/**
+	 * Tests every solid entity in the current state's entity stores against the solid gameObjects it could affect,
+	 * and every movable solid entity against the static geometry.
+	 * Movable entities are tested against every solid gameObject, other entities only against solid movable gameObjects,
+	 * since a pair where neither side can be reverted has no effect.
+	 * Movable entities are reverted to where they started the tick, and movable gameObjects are reverted as usual.
+	 * No triggers are pulled, entities have none and triggers only act on gameObjects.
+	 * @param objList Every object in the current state
+	 * @param movables Every movable object in the current state
+	 * @return The number of pairs tested
+	 */
+	private long collideEntities(List<GameObject> objList, List<GameObject> movables){
+		List<EntityStore> stores = engine.getCurrentState().getEntityStores();
+		if(stores.isEmpty()) return 0;
+		List<StaticGeometry> geometry = engine.getCurrentState().getStaticGeometry();
+		
+		//Only solid objects can collide with entities
+		gatherSolids(objList);
+		for(GameObject obj : movables){
+			if(obj.isSolid()) solidMovables.add(obj);
+		}
+		
+		long pairsTested = 0;
+		for(EntityStore store : stores){
+			int[] flags = store.getFlags();
+			for(int i = 0; i < store.size(); i++){
+				if((flags[i] & EntityStore.SOLID) == 0) continue;
+				boolean movable = (flags[i] & EntityStore.MOVABLE) != 0;
+				
+				if(movable){
+					for(StaticGeometry g : geometry){
+						pairsTested++;
+						if(g.findSolidOverlap(store.getX()[i], store.getY()[i], store.getWidth()[i], store.getHeight()[i]) >= 0){
+							store.revert(i);
+							break;
+						}
+					}
+				}
+				
+				List<GameObject> targets = movable ? solids : solidMovables;
+				for(int o = 0; o < targets.size(); o++){
+					GameObject obj = targets.get(o);
+					pairsTested++;
+					if(store.isColliding(i, obj)){
+						if(movable) store.revert(i);
+						if(obj instanceof MovableGameObject){
+							obj.wake();
+							((MovableGameObject)obj).revert();
+						}
+					}
+				}
+			}
+		}
+		return pairsTested;
+	}
+
+	/**
+	 * Tests every solid, movable body in the current state's off heap body stores against every solid gameObject
+	 * and the static geometry, reverting bodies which overlap either. Bodies never push gameObjects back.
+	 * @param objList Every object in the current state
+	 * @return The number of pairs tested
+	 */
+	private long collideBodies(List<GameObject> objList){
+		List<OffHeapBodyStore> stores = engine.getCurrentState().getBodyStores();
+		if(stores.isEmpty()) return 0;
+		List<StaticGeometry> geometry = engine.getCurrentState().getStaticGeometry();
+		
+		gatherSolids(objList);
+		
+		int blocking = EntityStore.SOLID | EntityStore.MOVABLE;
+		long pairsTested = 0;
+		for(OffHeapBodyStore store : stores){
+			for(int i = 0; i < store.size(); i++){
+				if((store.getFlags(i) & blocking) != blocking) continue;
+				boolean hit = false;
+				
+				for(int g = 0; g < geometry.size() && !hit; g++){
+					pairsTested++;
+					hit = geometry.get(g).findSolidOverlap(store.getX(i), store.getY(i), store.getWidthAt(i), store.getHeightAt(i)) >= 0;
+				}
+				for(int o = 0; o < solids.size() && !hit; o++){
+					pairsTested++;
+					hit = store.isColliding(i, solids.get(o));
+				}
+				if(hit) store.revert(i);
+			}
+		}
+		return pairsTested;
+	}
 
 }//Ends class
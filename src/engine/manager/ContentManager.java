@@ -9,6 +9,7 @@ import loader.ImageLoader;
 import loader.LevelLoader;
 import loader.Loader;
 import loader.SpriteLoader;
+import engine.Engine;
 
 /**
  * Class defines a component of the engine which manages all content and assets
@@ -23,9 +24,10 @@ public class ContentManager extends Manager {
 	
 	/**
 	 * Constructs a content manager
+	 * @param engine The engine this content belongs to
 	 */
-	public ContentManager() {
-		super();
+	public ContentManager(Engine engine) {
+		super(engine);
 	}
 	
 	//Accessors
@@ -73,6 +75,14 @@ public class ContentManager extends Manager {
 
 	}
 
+	/**
+	 * Content is loaded up front, the content manager is never updated
+	 */
+	@Override
+	public Phase getPhase(){
+		return Phase.NONE;
+	}
+
 	/**
 	 * Updates the content manager
 	 * This does not need to be updated, I don't think.
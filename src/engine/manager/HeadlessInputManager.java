@@ -0,0 +1,49 @@
+package engine.manager;
+
+import engine.Engine;
+import mathematics.Vec;
+
+/**
+ * A stand-in for {@link InputManager} used when the {@link engine.Engine} runs headless.
+ * Does not query the mouse or any window, so it works without a display.
+ * Keys and mouse buttons report as released unless something sets them through
+ * the usual KeyListener / MouseListener methods, and like any input manager they take effect on the next tick.
+ * @author Nex
+ *
+ */
+public class HeadlessInputManager extends InputManager {
+
+	//Immutable Attributes
+	private static final int NUM_MOUSE_BUTTONS = 4;		//Index 0 is unused, 1 - 3 are left, middle and right
+
+	/**
+	 * Constructs a headless input manager
+	 * @param engine The engine this input manager belongs to
+	 */
+	public HeadlessInputManager(Engine engine) {
+		super(engine);
+	}
+
+	/**
+	 * Initializes key and mouse button arrays without querying MouseInfo
+	 */
+	@Override
+	public void init() {
+		keys = new boolean[256];
+		mButtons = new boolean[NUM_MOUSE_BUTTONS];
+		pendingKeys = new boolean[keys.length];
+		pendingButtons = new boolean[mButtons.length];
+
+		mousePosition = new Vec(2);
+		previousMousePosition = new Vec(2);
+	}
+
+	/**
+	 * Freezes this tick's keys and mouse buttons. There is no pointer to poll when running headless.
+	 */
+	@Override
+	public void update() {
+		freezeInput();
+	}
+
+}
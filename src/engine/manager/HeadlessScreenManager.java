@@ -0,0 +1,78 @@
+package engine.manager;
+
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+
+import engine.Engine;
+
+/**
+ * A stand-in for {@link ScreenManager} used when the {@link engine.Engine} runs headless.
+ * Never creates a window and never draws, but still reports a viewport size
+ * so camera and mouse calculations keep working.
+ * @author Nex
+ *
+ */
+public class HeadlessScreenManager extends ScreenManager {
+
+	/**
+	 * Constructs a headless screen manager
+	 * @param engine The engine this screen manager belongs to
+	 */
+	public HeadlessScreenManager(Engine engine) {
+		super(engine);
+	}
+
+	/**
+	 * Gets the window the program is running in
+	 * @return null, there is no window when running headless
+	 */
+	@Override
+	public JFrame getWindow(){
+		return null;
+	}
+
+	/**
+	 * Gets the drawPanel the program is drawing on
+	 * @return null, there is no panel when running headless
+	 */
+	@Override
+	public JPanel getPanel(){
+		return null;
+	}
+
+	/**
+	 * Gets the width of the virtual viewport
+	 * @return The width of the viewport
+	 */
+	@Override
+	public int getWidth(){
+		return width;
+	}
+
+	/**
+	 * Gets the height of the virtual viewport
+	 * @return The height of the viewport
+	 */
+	@Override
+	public int getHeight(){
+		return height;
+	}
+
+	/**
+	 * Sets the size of the virtual viewport
+	 */
+	@Override
+	public void init() {
+		width = 1200;
+		height = 750;
+	}
+
+	/**
+	 * Does nothing, there is nothing to paint when running headless
+	 */
+	@Override
+	public void update() {
+
+	}
+
+}
@@ -8,6 +8,7 @@ import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.util.Set;
 
 import engine.Engine;
 import engine.Engine.Managers;
@@ -17,23 +18,30 @@ import mathematics.Vec;
  * Defines a class which observes and records both Keyboard and mouse input.
  * Accepted key presses only includes keys with ascii values between 0 and 256
  * Queries mouse for number of buttons before initializing mouse Buttons array.
+ *
+ * Key and mouse events arrive on the Swing event thread at any time, so they are written to pending arrays.
+ * Each tick {@link #update()} copies the pending arrays once into the per-tick keys and mouse buttons,
+ * which is all objects, {@link #isKeyPressed(char)} and the {@link InputRecorder} ever read.
+ * Input therefore stays the same for the whole of a tick.
  * @author Nex
  *
  */
 public class InputManager extends Manager implements KeyListener, MouseListener{
 
 	//Attributes
-	private boolean[] keys;
-	private boolean[] mButtons;
-	private Vec mousePosition;
-	private Vec previousMousePosition;
+	protected boolean[] keys;					//Keys held this tick
+	protected boolean[] mButtons;				//Mouse buttons held this tick
+	protected boolean[] pendingKeys;			//Keys held now, written by the event thread and locked on itself
+	protected boolean[] pendingButtons;			//Mouse buttons held now, written by the event thread and locked on pendingKeys
+	protected Vec mousePosition;
+	protected Vec previousMousePosition;
 	
 	/**
 	 * Constructs a new input manager
+	 * @param engine The engine this input manager belongs to
 	 */
-	public InputManager() {
-		//Initialize input manager
-		init();
+	public InputManager(Engine engine) {
+		super(engine);
 	}
 
 	/**
@@ -43,9 +51,11 @@ public class InputManager extends Manager implements KeyListener, MouseListener{
 	public void init() {
 		//Initialize array of keys
 		keys = new boolean[256];
+		pendingKeys = new boolean[keys.length];
 		
 		//Initialize array of mouseButtons
 		mButtons = new boolean[MouseInfo.getNumberOfButtons()];
+		pendingButtons = new boolean[mButtons.length];
 		
 		mousePosition = new Vec(2);
 		previousMousePosition = new Vec(2);
@@ -90,12 +100,12 @@ public class InputManager extends Manager implements KeyListener, MouseListener{
 	* @return combined vector
 	*/
 	public Vec getMouseWorldPosition(){
-		CameraManager cm = (CameraManager)Engine.currentInstance.getManager(Managers.CAMERAMANAGER);
-		ScreenManager sm = (ScreenManager)Engine.currentInstance.getManager(Managers.SCREENMANAGER);
+		CameraManager cm = (CameraManager)engine.getManager(Managers.CAMERAMANAGER);
+		ScreenManager sm = (ScreenManager)engine.getManager(Managers.SCREENMANAGER);
 		
 		Vec cameraPosition = cm.getPosition();
 		Vec combined = Vec.add(cameraPosition, mousePosition);
-		Vec screenDimensions = new Vec(sm.getWindow().getWidth(), sm.getWindow().getHeight());
+		Vec screenDimensions = new Vec(sm.getWidth(), sm.getHeight());
 		screenDimensions.scalarMultiply(0.5);
 		combined.subtract(screenDimensions);
 		
@@ -109,16 +119,43 @@ public class InputManager extends Manager implements KeyListener, MouseListener{
 
 	
 	/**
-	 * Updates the mouse positions
+	 * Freezes this tick's keys and mouse buttons from the pending input, and updates the mouse positions
 	 * 
 	 * Will wrap mouse to other side of window upon exit if mouseWrap is on.
 	 */
 	@Override
 	public void update() {
+		freezeInput();
 		previousMousePosition = mousePosition;
 		mousePosition = getUpdatedMousePosition();
 	}
 
+	/**
+	 * Copies the pending keys and mouse buttons into this tick's keys and mouse buttons
+	 */
+	protected void freezeInput(){
+		synchronized(pendingKeys){
+			System.arraycopy(pendingKeys, 0, keys, 0, keys.length);
+			System.arraycopy(pendingButtons, 0, mButtons, 0, mButtons.length);
+		}
+	}
+
+	/**
+	 * Input is polled before objects update
+	 */
+	@Override
+	public Phase getPhase(){
+		return Phase.PRE_UPDATE;
+	}
+
+	/**
+	 * Polling input only writes the input state
+	 */
+	@Override
+	public Set<String> getWrites(){
+		return resources(RESOURCE_INPUT);
+	}
+
 	/**
 	 * Not currently in use
 	 */
@@ -147,42 +184,50 @@ public class InputManager extends Manager implements KeyListener, MouseListener{
 	}
 
 	/**
-	 * Registers a mouse button press and stores true under the correct index of mouse button presses
+	 * Registers a mouse button press and stores true under the correct index of pending mouse button presses
 	 */
 	@Override
 	public void mousePressed(MouseEvent mousePress) {
-		mButtons[mousePress.getButton()] = true;
+		synchronized(pendingKeys){
+			pendingButtons[mousePress.getButton()] = true;
+		}
 		
 	}
 
 	/**
-	 * Registers a mouse button release and stores false under the correct index of mouse button presses
+	 * Registers a mouse button release and stores false under the correct index of pending mouse button presses
 	 */
 	@Override
 	public void mouseReleased(MouseEvent mouseRelease) {
-		mButtons[mouseRelease.getButton()] = false;
+		synchronized(pendingKeys){
+			pendingButtons[mouseRelease.getButton()] = false;
+		}
 		
 	}
 
 	/**
-	 * Marks a key as being pressed in the array of key states (keys)
+	 * Marks a key as being pressed in the array of pending key states
 	 */
 	@Override
 	public void keyPressed(KeyEvent keyPress) {
-		if((int)Character.toUpperCase(keyPress.getKeyChar()) < keys.length){
-			keys[(int)Character.toUpperCase(keyPress.getKeyChar())] = true;
+		if((int)Character.toUpperCase(keyPress.getKeyChar()) < pendingKeys.length){
+			synchronized(pendingKeys){
+				pendingKeys[(int)Character.toUpperCase(keyPress.getKeyChar())] = true;
+			}
 		}
 		
 		
 	}
 
 	/**
-	 * Marks a key as being released in the array of key states
+	 * Marks a key as being released in the array of pending key states
 	 */
 	@Override
 	public void keyReleased(KeyEvent keyRelease) {
-		if((int)Character.toUpperCase(keyRelease.getKeyChar()) < keys.length){
-			keys[(int)Character.toUpperCase(keyRelease.getKeyChar())] = false;
+		if((int)Character.toUpperCase(keyRelease.getKeyChar()) < pendingKeys.length){
+			synchronized(pendingKeys){
+				pendingKeys[(int)Character.toUpperCase(keyRelease.getKeyChar())] = false;
+			}
 		}
 	}
 
@@ -200,7 +245,7 @@ public class InputManager extends Manager implements KeyListener, MouseListener{
 		//Get the mouse's screen position
 		Point globalMousePos = MouseInfo.getPointerInfo().getLocation();
 		//Retrieve reference to screen manager
-		ScreenManager ref = (ScreenManager)Engine.currentInstance.getManager(Engine.Managers.SCREENMANAGER);
+		ScreenManager ref = (ScreenManager)engine.getManager(Engine.Managers.SCREENMANAGER);
 		//Retrieve windows position
 		Point windowPos = ref.getWindow().getLocation();
 		
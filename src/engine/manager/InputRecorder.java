@@ -0,0 +1,177 @@
+package engine.manager;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Set;
+
+import engine.Engine;
+import engine.Engine.Managers;
+
+/**
+ * Records the state of the engine's {@link InputManager} every tick into a compact binary log,
+ * which a {@link ReplayInputManager} can later feed back to reproduce a run exactly.
+ *
+ * The log starts with a header holding {@link #MAGIC}, {@link #VERSION}, and the number of keys and mouse buttons.
+ * Each tick then writes a single flags byte saying what changed since the tick before, followed by:
+ * 	The pressed keys as a bitset, if any key changed
+ * 	The pressed mouse buttons as a bitset, if any button changed
+ * 	The mouse position as two doubles, if it moved
+ * A tick where nothing changed therefore costs one byte.
+ *
+ * Register the recorder with the engine after its input manager. It reads the input manager's per-tick copy of the input,
+ * frozen before objects update, so it records exactly what the objects saw. Call {@link #close()} once done to flush the log.
+ * @author Nex
+ *
+ */
+public class InputRecorder extends Manager {
+
+	//Log format
+	public static final int MAGIC = 0x4A47494C;		//"JGIL"
+	public static final int VERSION = 1;
+	static final int KEYS_CHANGED = 1;
+	static final int BUTTONS_CHANGED = 2;
+	static final int MOUSE_MOVED = 4;
+
+	//Attributes
+	private DataOutputStream out;
+	private boolean[] lastKeys;
+	private boolean[] lastButtons;
+	private double lastMouseX, lastMouseY;
+	private byte[] bits;				//Scratch buffer a bitset is packed into before being written
+	private long ticksRecorded;
+
+	/**
+	 * Constructs an input recorder and writes the log header
+	 * @param engine The engine whose input is recorded
+	 * @param out Where the log is written. Closed by {@link #close()}.
+	 * @throws IOException If the header can not be written
+	 */
+	public InputRecorder(Engine engine, OutputStream out) throws IOException {
+		super(engine);
+		this.out = new DataOutputStream(new BufferedOutputStream(out));
+
+		InputManager input = getInput();
+		lastKeys = new boolean[input.keys.length];
+		lastButtons = new boolean[input.mButtons.length];
+		bits = new byte[(Math.max(lastKeys.length, lastButtons.length) + 7) / 8];
+		lastMouseX = lastMouseY = 0;
+
+		this.out.writeInt(MAGIC);
+		this.out.writeInt(VERSION);
+		this.out.writeShort(lastKeys.length);
+		this.out.writeShort(lastButtons.length);
+	}
+
+	@Override
+	public void init() {
+		ticksRecorded = 0;
+	}
+
+	//Accessors
+	/**
+	 * Gets the number of ticks written to the log
+	 * @return The number of ticks recorded
+	 */
+	public long getTicksRecorded(){
+		return ticksRecorded;
+	}
+
+	/**
+	 * Runs before objects update
+	 */
+	@Override
+	public Phase getPhase(){
+		return Phase.PRE_UPDATE;
+	}
+
+	/**
+	 * Reads the input state, so the recorder always runs after the input manager
+	 */
+	@Override
+	public Set<String> getReads(){
+		return resources(RESOURCE_INPUT);
+	}
+
+	/**
+	 * Only writes to its own log
+	 */
+	@Override
+	public Set<String> getWrites(){
+		return resources();
+	}
+
+	//Methods
+	/**
+	 * Writes this tick's input to the log
+	 */
+	@Override
+	public void update() {
+		if(out == null) return;
+
+		InputManager input = getInput();
+		double mouseX = input.mousePosition.getComponent(0);
+		double mouseY = input.mousePosition.getComponent(1);
+
+		int flags = 0;
+		if(!Arrays.equals(lastKeys, input.keys)) flags |= KEYS_CHANGED;
+		if(!Arrays.equals(lastButtons, input.mButtons)) flags |= BUTTONS_CHANGED;
+		if(mouseX != lastMouseX || mouseY != lastMouseY) flags |= MOUSE_MOVED;
+
+		try{
+			out.writeByte(flags);
+			if((flags & KEYS_CHANGED) != 0){
+				System.arraycopy(input.keys, 0, lastKeys, 0, lastKeys.length);
+				writeBits(lastKeys);
+			}
+			if((flags & BUTTONS_CHANGED) != 0){
+				System.arraycopy(input.mButtons, 0, lastButtons, 0, lastButtons.length);
+				writeBits(lastButtons);
+			}
+			if((flags & MOUSE_MOVED) != 0){
+				out.writeDouble(mouseX);
+				out.writeDouble(mouseY);
+				lastMouseX = mouseX;
+				lastMouseY = mouseY;
+			}
+		}
+		catch(IOException e){
+			throw new RuntimeException("Failed to record input.", e);
+		}
+		ticksRecorded++;
+	}
+
+	/**
+	 * Flushes and closes the log. Ticks after this are not recorded.
+	 * @throws IOException If the log can not be flushed
+	 */
+	public void close() throws IOException {
+		if(out == null) return;
+		try{
+			out.close();
+		}
+		finally{
+			out = null;
+		}
+	}
+
+	/**
+	 * Packs a boolean array into bytes, lowest index in the lowest bit, and writes it
+	 * @param values The values to write
+	 */
+	private void writeBits(boolean[] values) throws IOException {
+		int numBytes = (values.length + 7) / 8;
+		Arrays.fill(bits, 0, numBytes, (byte)0);
+		for(int i = 0; i < values.length; i++){
+			if(values[i]) bits[i >> 3] |= 1 << (i & 7);
+		}
+		out.write(bits, 0, numBytes);
+	}
+
+	private InputManager getInput(){
+		return (InputManager)engine.getManager(Managers.INPUTMANAGER);
+	}
+
+}
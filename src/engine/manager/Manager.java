@@ -1,19 +1,81 @@
 package engine.manager;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import engine.Engine;
+
 /**
  * Defines a component of the {@link engine.Engine} which takes
  * care of a specific portion of what makes a game.
+ * 
+ * Each manager declares the {@link Phase} of the tick it runs in, and the resources it reads and writes.
+ * The {@link ManagerScheduler} uses these to run managers within a phase at the same time
+ * whenever they do not touch the same resources.
  * @author Nex
  *
  */
 public abstract class Manager {
 
+	//Enums
+	/**
+	 * The point in the engine's loop at which a manager is updated
+	 */
+	public enum Phase{
+		PRE_UPDATE,		//Every tick, before the engine state updates its objects
+		POST_UPDATE,	//Every tick, after the engine state updates its objects
+		RENDER,			//Every drawn frame
+		NONE			//Never updated by the engine
+	}
+
+	//Resources shared between the built in managers
+	public static final String RESOURCE_ALL = "*";					//Conflicts with every other resource
+	public static final String RESOURCE_INPUT = "input";
+	public static final String RESOURCE_OBJECTS = "objects";
+	public static final String RESOURCE_SPRITE_CLOCK = "spriteClock";
+	public static final String RESOURCE_CAMERA = "camera";
+	public static final String RESOURCE_SCREEN = "screen";
+
+	//Attributes
+	protected Engine engine;		//The engine this manager belongs to
+
 	/**
 	 * Manager Constructor
+	 * The engine is set when this manager is registered with one.
 	 */
 	public Manager() {	
 		init();
 	}
+
+	/**
+	 * Constructs a manager belonging to an engine.
+	 * The engine is set before init is called, so init may use it.
+	 * @param engine The engine this manager belongs to
+	 */
+	public Manager(Engine engine) {
+		this.engine = engine;
+		init();
+	}
+	
+	//Accessors / Modifiers
+	/**
+	 * Gets the engine this manager belongs to
+	 * @return The owning engine, or null if this manager has not been registered with one
+	 */
+	public Engine getEngine(){
+		return engine;
+	}
+	
+	/**
+	 * Sets the engine this manager belongs to.
+	 * Called by the engine when this manager is registered.
+	 * @param engine The owning engine
+	 */
+	public void setEngine(Engine engine){
+		this.engine = engine;
+	}
 	
 	
 	//Methods
@@ -27,5 +89,39 @@ public abstract class Manager {
 	 */
 	public abstract void update();
 	
+	/**
+	 * Gets the phase of the engine's loop this manager is updated in.
+	 * @return The phase to update in, POST_UPDATE by default
+	 */
+	public Phase getPhase(){
+		return Phase.POST_UPDATE;
+	}
+	
+	/**
+	 * Gets the resources this manager reads while updating.
+	 * @return The names of every resource read, none by default
+	 */
+	public Set<String> getReads(){
+		return Collections.emptySet();
+	}
+	
+	/**
+	 * Gets the resources this manager writes while updating.
+	 * By default a manager writes {@link #RESOURCE_ALL}, so it never runs alongside another manager.
+	 * @return The names of every resource written
+	 */
+	public Set<String> getWrites(){
+		return resources(RESOURCE_ALL);
+	}
+	
+	/**
+	 * Builds a set of resource names
+	 * @param names The resources to include
+	 * @return A set containing every name given
+	 */
+	protected static Set<String> resources(String... names){
+		return new HashSet<String>(Arrays.asList(names));
+	}
+	
 
 }
@@ -0,0 +1,289 @@
+package engine.manager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import engine.manager.Manager.Phase;
+import engine.metrics.EngineMetrics;
+import engine.metrics.Histogram;
+
+/**
+ * Keeps a registry of every {@link Manager} in the {@link engine.Engine} and decides when each one updates.
+ *
+ * Managers are grouped by the {@link Phase} they declare. Within a phase, managers are split into waves:
+ * a manager goes into the first wave after every earlier registered manager it conflicts with.
+ * Two managers conflict if either one writes a resource the other reads or writes.
+ * Waves run one after another, and every manager in a wave runs at the same time on a worker pool.
+ * Managers which conflict therefore always update in the order they were registered.
+ * If given {@link EngineMetrics}, every manager's update is timed into a histogram named after it.
+ * @author Nex
+ *
+ */
+public class ManagerScheduler {
+
+	//Attributes
+	private LinkedHashMap<String, Manager> registry;				//Every manager keyed by name, in registration order
+	private ArrayList<ArrayList<ArrayList<Manager>>> schedule;		//For each phase, the waves of managers to run
+	private boolean scheduleDirty;									//Has the registry changed since the schedule was built
+	private long[] phaseNanos;										//How long each phase took the last time it ran
+	private ExecutorService workers;								//Runs managers which share a wave, created when first needed
+	private EngineMetrics metrics;									//Where update timings are recorded, null to skip timing
+	private IdentityHashMap<Manager, Histogram> timings;			//Each scheduled manager's update histogram
+
+	/**
+	 * Constructs an empty manager scheduler
+	 */
+	public ManagerScheduler() {
+		registry = new LinkedHashMap<String, Manager>();
+		schedule = new ArrayList<ArrayList<ArrayList<Manager>>>();
+		scheduleDirty = true;
+		phaseNanos = new long[Phase.values().length];
+		timings = new IdentityHashMap<Manager, Histogram>();
+	}
+
+	//Accessors / Modifiers
+	/**
+	 * Registers a manager under a name, replacing any manager already registered under it.
+	 * The schedule is rebuilt the next time a phase runs.
+	 * @param name Name to register the manager under
+	 * @param manager The manager to register
+	 */
+	public void register(String name, Manager manager){
+		registry.put(name, manager);
+		scheduleDirty = true;
+	}
+
+	/**
+	 * Removes the manager registered under a name
+	 * @param name Name the manager was registered under
+	 * @return The manager which was removed, or null if there was none
+	 */
+	public Manager unregister(String name){
+		Manager removed = registry.remove(name);
+		scheduleDirty = true;
+		return removed;
+	}
+
+	/**
+	 * Gets the manager registered under a name
+	 * @param name Name the manager was registered under
+	 * @return The manager, or null if there is none
+	 */
+	public Manager getManager(String name){
+		return registry.get(name);
+	}
+
+	/**
+	 * Gets every registered manager
+	 * @return An unmodifiable view of the managers, in registration order
+	 */
+	public Collection<Manager> getManagers(){
+		return Collections.unmodifiableCollection(registry.values());
+	}
+
+	/**
+	 * Sets where manager update timings are recorded
+	 * @param metrics The metrics to record to, or null to stop timing updates
+	 */
+	public void setMetrics(EngineMetrics metrics){
+		this.metrics = metrics;
+		scheduleDirty = true;
+	}
+
+	/**
+	 * Gets how long a phase took the last time it ran
+	 * @param phase The phase to get the timing of
+	 * @return The duration of the last run of the phase, in nanoseconds
+	 */
+	public long getPhaseNanos(Phase phase){
+		return phaseNanos[phase.ordinal()];
+	}
+
+	/**
+	 * Gets the waves of managers which will run in a phase
+	 * @param phase The phase to get the waves of
+	 * @return A copy of the phase's waves, each wave being a list of managers which run together
+	 */
+	public ArrayList<ArrayList<Manager>> getWaves(Phase phase){
+		if(scheduleDirty) buildSchedule();
+		ArrayList<ArrayList<Manager>> copy = new ArrayList<ArrayList<Manager>>();
+		for(ArrayList<Manager> wave : schedule.get(phase.ordinal())){
+			copy.add(new ArrayList<Manager>(wave));
+		}
+		return copy;
+	}
+
+	//Methods
+	/**
+	 * Updates every manager in a phase, running managers which share a wave at the same time.
+	 * Returns once every manager in the phase has finished updating.
+	 * @param phase The phase to run
+	 */
+	public void runPhase(Phase phase){
+		if(scheduleDirty) buildSchedule();
+
+		long start = System.nanoTime();
+		for(ArrayList<Manager> wave : schedule.get(phase.ordinal())){
+			if(wave.size() == 1){
+				update(wave.get(0));
+			}
+			else{
+				runWave(wave);
+			}
+		}
+		phaseNanos[phase.ordinal()] = System.nanoTime() - start;
+	}
+
+	/**
+	 * Stops the worker pool. It will be recreated if a wave needs it again.
+	 */
+	public void shutdown(){
+		if(workers != null){
+			workers.shutdown();
+			workers = null;
+		}
+	}
+
+	/**
+	 * Runs every manager in a wave at the same time.
+	 * The first manager runs on the calling thread while the rest run on the worker pool.
+	 * @param wave The managers to run
+	 */
+	private void runWave(ArrayList<Manager> wave){
+		if(workers == null){
+			workers = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), new ThreadFactory(){
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "Manager worker");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+
+		ArrayList<Future<Object>> pending = new ArrayList<Future<Object>>(wave.size() - 1);
+		for(int i = 1; i < wave.size(); i++){
+			final Manager manager = wave.get(i);
+			pending.add(workers.submit(new Callable<Object>(){
+				@Override
+				public Object call() throws Exception {
+					update(manager);
+					return null;
+				}
+			}));
+		}
+
+		update(wave.get(0));
+
+		for(Future<Object> f : pending){
+			try{
+				f.get();
+			}
+			catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Interrupted while waiting on a manager update.", e);
+			}
+			catch(ExecutionException e){
+				throw new RuntimeException("A manager failed to update.", e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * Updates a single manager, timing it if metrics are being recorded
+	 * @param manager The manager to update
+	 */
+	private void update(Manager manager){
+		Histogram timing = timings.get(manager);
+		if(timing == null){
+			manager.update();
+		}
+		else{
+			long start = System.nanoTime();
+			manager.update();
+			timing.record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Rebuilds the waves of every phase from the registry
+	 */
+	private void buildSchedule(){
+		schedule.clear();
+		timings.clear();
+		for(int p = 0; p < Phase.values().length; p++){
+			schedule.add(new ArrayList<ArrayList<Manager>>());
+		}
+
+		//Cache every manager's declarations, they are only read once per build
+		ArrayList<Manager> placed = new ArrayList<Manager>();
+		ArrayList<Integer> placedWave = new ArrayList<Integer>();
+		ArrayList<Set<String>> placedReads = new ArrayList<Set<String>>();
+		ArrayList<Set<String>> placedWrites = new ArrayList<Set<String>>();
+
+		for(Map.Entry<String, Manager> entry : registry.entrySet()){
+			Manager manager = entry.getValue();
+			Phase phase = manager.getPhase();
+			if(phase == Phase.NONE) continue;
+
+			if(metrics != null){
+				timings.put(manager, metrics.getHistogram(EngineMetrics.MANAGER_PREFIX + entry.getKey()));
+			}
+
+			Set<String> reads = new HashSet<String>(manager.getReads());
+			Set<String> writes = new HashSet<String>(manager.getWrites());
+
+			//Go after the last wave holding a conflicting manager in the same phase
+			int wave = 0;
+			for(int i = 0; i < placed.size(); i++){
+				if(placed.get(i).getPhase() != phase) continue;
+				if(conflicts(reads, writes, placedReads.get(i), placedWrites.get(i))){
+					wave = Math.max(wave, placedWave.get(i) + 1);
+				}
+			}
+
+			ArrayList<ArrayList<Manager>> waves = schedule.get(phase.ordinal());
+			while(waves.size() <= wave){
+				waves.add(new ArrayList<Manager>());
+			}
+			waves.get(wave).add(manager);
+
+			placed.add(manager);
+			placedWave.add(wave);
+			placedReads.add(reads);
+			placedWrites.add(writes);
+		}
+
+		scheduleDirty = false;
+	}
+
+	/**
+	 * Determines whether two managers touch the same resources in a way which prevents them running together
+	 * @return True if either manager writes something the other reads or writes
+	 */
+	private static boolean conflicts(Set<String> readsA, Set<String> writesA, Set<String> readsB, Set<String> writesB){
+		if(writesA.contains(Manager.RESOURCE_ALL) || writesB.contains(Manager.RESOURCE_ALL)) return true;
+		if(readsA.contains(Manager.RESOURCE_ALL) && !writesB.isEmpty()) return true;
+		if(readsB.contains(Manager.RESOURCE_ALL) && !writesA.isEmpty()) return true;
+		for(String w : writesA){
+			if(writesB.contains(w) || readsB.contains(w)) return true;
+		}
+		for(String w : writesB){
+			if(readsA.contains(w)) return true;
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,183 @@
+package engine.manager;
+
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import engine.Engine;
+import mathematics.Vec;
+
+/**
+ * An {@link InputManager} which plays back a log written by an {@link InputRecorder} instead of reading real input.
+ * Each tick applies the next recorded tick, so a run fed the same log sees exactly the same input.
+ * Once the log runs out the last recorded state is held.
+ * Real key and mouse events are ignored, and neither MouseInfo nor any window is queried,
+ * so replays work headless.
+ *
+ * For a fully reproducible run, also put the {@link SpriteManager} on a fixed clock.
+ * @author Nex
+ *
+ */
+public class ReplayInputManager extends InputManager {
+
+	//Attributes
+	private DataInputStream in;
+	private byte[] bits;					//Scratch buffer a bitset is read into
+	private long ticksReplayed;
+	private boolean finished;
+
+	/**
+	 * Constructs a replay input manager and reads the log header
+	 * @param engine The engine this input manager belongs to
+	 * @param in The log to play back. Closed once the log runs out, or by {@link #close()}.
+	 * @throws IOException If the header can not be read or is not from an input recorder
+	 */
+	public ReplayInputManager(Engine engine, InputStream in) throws IOException {
+		super(engine);
+		this.in = new DataInputStream(new BufferedInputStream(in));
+
+		if(this.in.readInt() != InputRecorder.MAGIC){
+			throw new IOException("Not an input log.");
+		}
+		int version = this.in.readInt();
+		if(version != InputRecorder.VERSION){
+			throw new IOException("Unsupported input log version " + version + ".");
+		}
+		keys = new boolean[this.in.readUnsignedShort()];
+		mButtons = new boolean[this.in.readUnsignedShort()];
+		pendingKeys = new boolean[keys.length];
+		pendingButtons = new boolean[mButtons.length];
+		bits = new byte[(Math.max(keys.length, mButtons.length) + 7) / 8];
+	}
+
+	/**
+	 * Initializes empty input state without querying MouseInfo.
+	 * The key and mouse button arrays are resized to match the log once its header is read.
+	 */
+	@Override
+	public void init() {
+		keys = new boolean[256];
+		mButtons = new boolean[0];
+		pendingKeys = new boolean[keys.length];
+		pendingButtons = new boolean[0];
+
+		mousePosition = new Vec(2);
+		previousMousePosition = new Vec(2);
+
+		ticksReplayed = 0;
+		finished = false;
+	}
+
+	//Accessors
+	/**
+	 * Gets whether every tick in the log has been played back
+	 * @return True once the log has run out
+	 */
+	public boolean isFinished(){
+		return finished;
+	}
+
+	/**
+	 * Gets the number of ticks played back from the log
+	 * @return The number of ticks replayed
+	 */
+	public long getTicksReplayed(){
+		return ticksReplayed;
+	}
+
+	/**
+	 * Applies the next tick in the log to the per-tick keys, mouse buttons and mouse position.
+	 * The pending arrays are never written, since real events are ignored.
+	 */
+	@Override
+	public void update() {
+		previousMousePosition = mousePosition;
+		mousePosition = new Vec(previousMousePosition);
+		if(finished) return;
+
+		try{
+			int flags = in.read();
+			if(flags < 0){
+				close();
+				return;
+			}
+			if((flags & InputRecorder.KEYS_CHANGED) != 0) readBits(keys);
+			if((flags & InputRecorder.BUTTONS_CHANGED) != 0) readBits(mButtons);
+			if((flags & InputRecorder.MOUSE_MOVED) != 0){
+				mousePosition.setComponent(0, in.readDouble());
+				mousePosition.setComponent(1, in.readDouble());
+			}
+			ticksReplayed++;
+		}
+		catch(EOFException e){
+			throw new RuntimeException("Input log ends partway through a tick.", e);
+		}
+		catch(IOException e){
+			throw new RuntimeException("Failed to read input log.", e);
+		}
+	}
+
+	/**
+	 * Stops playback and closes the log. The current input state is held.
+	 * @throws IOException If the log can not be closed
+	 */
+	public void close() throws IOException {
+		finished = true;
+		if(in == null) return;
+		try{
+			in.close();
+		}
+		finally{
+			in = null;
+		}
+	}
+
+	/**
+	 * Reads a bitset written by the recorder into a boolean array
+	 * @param values The array to fill
+	 */
+	private void readBits(boolean[] values) throws IOException {
+		int numBytes = (values.length + 7) / 8;
+		in.readFully(bits, 0, numBytes);
+		for(int i = 0; i < values.length; i++){
+			values[i] = (bits[i >> 3] & (1 << (i & 7))) != 0;
+		}
+	}
+
+	/**
+	 * Ignored, input comes from the log
+	 */
+	@Override
+	public void mousePressed(MouseEvent mousePress) {
+
+	}
+
+	/**
+	 * Ignored, input comes from the log
+	 */
+	@Override
+	public void mouseReleased(MouseEvent mouseRelease) {
+
+	}
+
+	/**
+	 * Ignored, input comes from the log
+	 */
+	@Override
+	public void keyPressed(KeyEvent keyPress) {
+
+	}
+
+	/**
+	 * Ignored, input comes from the log
+	 */
+	@Override
+	public void keyReleased(KeyEvent keyRelease) {
+
+	}
+
+}
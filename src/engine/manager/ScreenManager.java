@@ -2,18 +2,20 @@ package engine.manager;
 
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseListener;
 import java.util.ArrayList;
-
+import java.util.Set;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 
-import objects.GameObject;
+import buffer.RenderSnapshot;
 import engine.Engine;
 import engine.Engine.Managers;
+import engine.metrics.EngineMetrics;
 
 /**
  * A {@link Manager} which takes care of drawing objects in
@@ -28,15 +30,17 @@ public class ScreenManager extends Manager{
 	private JFrame window;
 	private JPanel drawPanel;
 	private Color backgroundColor;
-	private int width, height;
+	protected int width, height;
+	private volatile boolean showMetrics;		//Should the metrics overlay be drawn
 	
 
 
 	/**
 	 * Constructs a ScreenManager
+	 * @param engine The engine whose snapshots are drawn, its input manager must already be registered
 	 */
-	public ScreenManager() {
-		super();
+	public ScreenManager(Engine engine) {
+		super(engine);
 	}
 	
 	//Accessors
@@ -56,6 +60,38 @@ public class ScreenManager extends Manager{
 		return drawPanel;
 	}
 
+	/**
+	 * Gets whether the metrics overlay is being drawn
+	 * @return True if the overlay is shown
+	 */
+	public boolean isShowingMetrics(){
+		return showMetrics;
+	}
+	
+	/**
+	 * Sets whether the engine's metrics are drawn over the top left of the screen
+	 * @param show True to show the overlay
+	 */
+	public void setShowMetrics(boolean show){
+		showMetrics = show;
+	}
+	
+	/**
+	 * Gets the width of the area the program is drawing to
+	 * @return The width of the window
+	 */
+	public int getWidth(){
+		return window.getWidth();
+	}
+	
+	/**
+	 * Gets the height of the area the program is drawing to
+	 * @return The height of the window
+	 */
+	public int getHeight(){
+		return window.getHeight();
+	}
+
 	/**
 	 * Initializes all member variables of ScreenManager.
 	 * Sets width and height of viewport,
@@ -65,6 +101,7 @@ public class ScreenManager extends Manager{
 	@Override
 	public void init() {
 		//Set internals
+		showMetrics = false;
 		width = 1200;
 		height = 750;
 		
@@ -83,6 +120,7 @@ public class ScreenManager extends Manager{
 			 */
 			@Override
 			public void paintComponent(Graphics g){
+				long paintStart = System.nanoTime();
 				super.paintComponent(g);
 				//TODO: Change refreshing to real time
 				//Refresh screen
@@ -93,19 +131,27 @@ public class ScreenManager extends Manager{
 				//Cast to graphics2d
 				Graphics2D g2d = (Graphics2D)g;
 
-				//Construct camera coordinate system
-				CameraManager cam = (CameraManager)Engine.currentInstance.getManager(Managers.CAMERAMANAGER);
-				cam.constructCameraCoordinateSystem(g2d);
+				//Get the most recently completed tick
+				RenderSnapshot snapshot = engine.getRenderBuffer().getFront();
+				double alpha = engine.getInterpolationAlpha();
 
-				ArrayList<GameObject> drawList = Engine.currentInstance.getCurrentState().getObjList();
+				//Construct camera coordinate system
+				CameraManager cam = (CameraManager)engine.getManager(Managers.CAMERAMANAGER);
+				cam.constructCameraCoordinateSystem(g2d, snapshot.getCameraX(alpha), snapshot.getCameraY(alpha));
 
-				//For every game object in objects
-				for(GameObject obj : drawList){
-					obj.draw(g2d);
-				}
+				//Draw every object in the snapshot
+				snapshot.draw(g2d, alpha);
 				
 				//Destruct camera coordinate system
 				cam.destructCameraCoordinateSystem(g2d);
+
+				EngineMetrics metrics = engine.getMetrics();
+				metrics.getHistogram(EngineMetrics.PAINT).record(System.nanoTime() - paintStart);
+
+				//Draw the overlay in screen space, on top of everything
+				if(showMetrics){
+					drawMetrics(g2d, metrics);
+				}
 			}
 		};
 
@@ -117,8 +163,8 @@ public class ScreenManager extends Manager{
 		window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
 		//Get listeners
-		KeyListener listener = (KeyListener)Engine.currentInstance.getManager(Engine.Managers.INPUTMANAGER);
-		MouseListener mlistener = (MouseListener)Engine.currentInstance.getManager(Engine.Managers.INPUTMANAGER);
+		KeyListener listener = (KeyListener)engine.getManager(Engine.Managers.INPUTMANAGER);
+		MouseListener mlistener = (MouseListener)engine.getManager(Engine.Managers.INPUTMANAGER);
 		
 		//Add input listeners
 		drawPanel.addKeyListener(listener);
@@ -127,6 +173,42 @@ public class ScreenManager extends Manager{
 		drawPanel.setFocusable(true);
 	}
 
+	/**
+	 * Draws a line of text for each of the engine's metrics
+	 * @param g2d Renderer, in screen space
+	 * @param metrics The metrics to draw
+	 */
+	private void drawMetrics(Graphics2D g2d, EngineMetrics metrics){
+		ArrayList<String> lines = metrics.describe();
+		g2d.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+		int lineHeight = g2d.getFontMetrics().getHeight();
+
+		//Darken the area behind the text so it can be read over anything
+		g2d.setColor(new Color(0, 0, 0, 160));
+		g2d.fillRect(0, 0, 560, lineHeight * lines.size() + 8);
+
+		g2d.setColor(Color.white);
+		for(int i = 0; i < lines.size(); i++){
+			g2d.drawString(lines.get(i), 4, lineHeight * (i + 1));
+		}
+	}
+
+	/**
+	 * The screen is repainted once per drawn frame
+	 */
+	@Override
+	public Phase getPhase(){
+		return Phase.RENDER;
+	}
+
+	/**
+	 * Requesting a repaint only writes the screen, the paint itself reads a render snapshot
+	 */
+	@Override
+	public Set<String> getWrites(){
+		return resources(RESOURCE_SCREEN);
+	}
+
 	/**
 	 * Paints the screen
 	 */
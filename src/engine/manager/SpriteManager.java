@@ -1,5 +1,9 @@
 package engine.manager;
 
+import java.util.Set;
+
+import engine.Engine;
+
 /**
  * Class defines a component of the engine which handles sprites and animations.
  * Tracks timing for animations and defines fps 
@@ -17,6 +21,7 @@ public class SpriteManager extends Manager {
 	private double deltaTime;			//Tracks the change in time from last frameChange to this frameChange in seconds
 	private double deltaFrames;			//Tracks the change in frames from last cycle to this cycle
 	private boolean reset;
+	private boolean fixedClock;			//Advance by one engine tick per update instead of by wall clock time
 	
 	
 	//Accessors
@@ -28,14 +33,35 @@ public class SpriteManager extends Manager {
 		return deltaFrames;
 	}
 	
+	/**
+	 * Gets whether animations advance by a fixed amount each tick
+	 * @return True if on a fixed clock, false if on the wall clock
+	 */
+	public boolean isFixedClock(){
+		return fixedClock;
+	}
+	
+	/**
+	 * Sets whether animations advance by exactly one engine tick each update rather than by the wall clock.
+	 * A fixed clock makes animation depend only on the number of ticks run, so headless and replayed runs
+	 * animate identically no matter how fast they run.
+	 * @param fixed True to use a fixed clock, false to use the wall clock
+	 */
+	public void setFixedClock(boolean fixed){
+		fixedClock = fixed;
+		currentTime = System.currentTimeMillis();
+		previousTime = currentTime;
+	}
+	
 	
 	/**
 	 * Constructs a sprite manager
 	 * 
 	 * Initialize all member variables
+	 * @param engine The engine this sprite clock belongs to
 	 */
-	public SpriteManager() {
-		super();
+	public SpriteManager(Engine engine) {
+		super(engine);
 	}
 
 	
@@ -49,6 +75,7 @@ public class SpriteManager extends Manager {
 		
 		deltaTime = 0;
 		deltaFrames = 0;
+		fixedClock = false;
 	}
 	
 	/**
@@ -68,10 +95,26 @@ public class SpriteManager extends Manager {
 		reset = true;
 	}
 
+	/**
+	 * The animation clock advances before objects update, so sprites see this tick's frames
+	 */
+	@Override
+	public Phase getPhase(){
+		return Phase.PRE_UPDATE;
+	}
+
+	/**
+	 * Advancing the clock only writes the sprite clock
+	 */
+	@Override
+	public Set<String> getWrites(){
+		return resources(RESOURCE_SPRITE_CLOCK);
+	}
+
 	/**
 	 * Updates the SpriteManager
 	 * If any sprites updated their frame, resets the number of frames which has passed.
-	 * Gets time passed since last update,
+	 * Gets time passed since last update, or one engine tick if on a fixed clock,
 	 * Increments time passed since last frame change
 	 * Calculates number of frames passed since last frameChange
 	 * Decrements time passed since last frameChange by time needed for deltaFrames to pass
@@ -81,9 +124,13 @@ public class SpriteManager extends Manager {
 	public void update() {
 		if(reset) resetDeltaFrames();
 		
-		currentTime = System.currentTimeMillis();
-		
-		deltaTime += ((double)(currentTime - previousTime))/1000.0;
+		if(fixedClock){
+			deltaTime += engine.getTickDelta();
+		}
+		else{
+			currentTime = System.currentTimeMillis();
+			deltaTime += ((double)(currentTime - previousTime))/1000.0;
+		}
 		deltaFrames += (int)((deltaTime * fps));
 		
 		deltaTime -= ((double)deltaFrames) * (1.0/(double)fps);
@@ -0,0 +1,60 @@
+package engine.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts occurrences of something over the life of the engine, and over the most recent tick.
+ * Safe to increment from any thread.
+ * @author Nex
+ *
+ */
+public class Counter {
+
+	//Attributes
+	private final AtomicLong total;
+	private volatile long totalAtTickStart;		//Total when the current tick began
+	private volatile long lastTick;				//Amount counted during the last completed tick
+
+	/**
+	 * Constructs a counter at 0
+	 */
+	public Counter() {
+		total = new AtomicLong();
+		totalAtTickStart = 0;
+		lastTick = 0;
+	}
+
+	/**
+	 * Increments the counter
+	 * @param amount Amount to add
+	 */
+	public void add(long amount){
+		total.addAndGet(amount);
+	}
+
+	/**
+	 * Gets everything ever counted
+	 * @return The total count
+	 */
+	public long getTotal(){
+		return total.get();
+	}
+
+	/**
+	 * Gets the amount counted during the last completed tick
+	 * @return The count for the last tick
+	 */
+	public long getLastTick(){
+		return lastTick;
+	}
+
+	/**
+	 * Closes off the current tick, see {@link EngineMetrics#endTick()}
+	 */
+	void endTick(){
+		long current = total.get();
+		lastTick = current - totalAtTickStart;
+		totalAtTickStart = current;
+	}
+
+}
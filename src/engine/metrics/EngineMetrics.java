@@ -0,0 +1,118 @@
+package engine.metrics;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Holds every timing histogram and counter the {@link engine.Engine} records.
+ * 
+ * Histograms record nanosecond durations, such as each manager's update, the engine state's update and the paint pass.
+ * Counters count work done, such as objects updated, collision pairs tested and triggers fired.
+ * Both are created the first time they are asked for, and are safe to use from any thread.
+ * @author Nex
+ *
+ */
+public class EngineMetrics {
+
+	//Names of the metrics the engine records
+	public static final String TICK = "tick";
+	public static final String ENGINE_STATE_UPDATE = "engineState.update";
+	public static final String PAINT = "paint";
+	public static final String MANAGER_PREFIX = "manager.";
+	public static final String OBJECTS_UPDATED = "objectsUpdated";
+	public static final String OBJECTS_ASLEEP = "objectsAsleep";
+	public static final String COLLISION_PAIRS_TESTED = "collisionPairsTested";
+	public static final String TRIGGERS_FIRED = "triggersFired";
+
+	//Immutable Attributes
+	private static final int WINDOW_SIZE = 600;		//Ten seconds of samples at the default tick rate
+
+	//Attributes
+	private ConcurrentSkipListMap<String, Histogram> histograms;		//Sorted so the overlay lists them in a stable order
+	private ConcurrentSkipListMap<String, Counter> counters;
+
+	/**
+	 * Constructs an empty set of metrics
+	 */
+	public EngineMetrics() {
+		histograms = new ConcurrentSkipListMap<String, Histogram>();
+		counters = new ConcurrentSkipListMap<String, Counter>();
+	}
+
+	//Accessors
+	/**
+	 * Gets a histogram by name, creating it if it does not exist yet
+	 * @param name Name of the histogram
+	 * @return The histogram
+	 */
+	public Histogram getHistogram(String name){
+		Histogram h = histograms.get(name);
+		if(h == null){
+			Histogram created = new Histogram(WINDOW_SIZE);
+			h = histograms.putIfAbsent(name, created);
+			if(h == null) h = created;
+		}
+		return h;
+	}
+
+	/**
+	 * Gets a counter by name, creating it if it does not exist yet
+	 * @param name Name of the counter
+	 * @return The counter
+	 */
+	public Counter getCounter(String name){
+		Counter c = counters.get(name);
+		if(c == null){
+			Counter created = new Counter();
+			c = counters.putIfAbsent(name, created);
+			if(c == null) c = created;
+		}
+		return c;
+	}
+
+	/**
+	 * Gets the names of every histogram, sorted
+	 * @return A new list of histogram names
+	 */
+	public ArrayList<String> getHistogramNames(){
+		return new ArrayList<String>(histograms.keySet());
+	}
+
+	/**
+	 * Gets the names of every counter, sorted
+	 * @return A new list of counter names
+	 */
+	public ArrayList<String> getCounterNames(){
+		return new ArrayList<String>(counters.keySet());
+	}
+
+	//Methods
+	/**
+	 * Marks the end of a tick, so every counter's last tick value covers the tick that just finished
+	 */
+	public void endTick(){
+		for(Counter c : counters.values()){
+			c.endTick();
+		}
+	}
+
+	/**
+	 * Builds a line of text describing each histogram and counter, as drawn by the metrics overlay.
+	 * Durations are shown in milliseconds, counters show the amount counted during the last tick.
+	 * @return A new list of lines
+	 */
+	public ArrayList<String> describe(){
+		ArrayList<String> lines = new ArrayList<String>();
+		for(Map.Entry<String, Histogram> entry : histograms.entrySet()){
+			Histogram.Summary h = entry.getValue().summarize();
+			lines.add(String.format("%-28s p50 %7.3fms  p99 %7.3fms  max %7.3fms",
+					entry.getKey(), h.getP50() / 1e6, h.getP99() / 1e6, h.getMax() / 1e6));
+		}
+		for(Map.Entry<String, Counter> entry : counters.entrySet()){
+			lines.add(String.format("%-28s %d / tick", entry.getKey(), entry.getValue().getLastTick()));
+		}
+		return lines;
+	}
+
+}
@@ -0,0 +1,155 @@
+package engine.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Records durations in nanoseconds and summarizes the most recent ones.
+ * Keeps a fixed window of samples, so percentiles always describe recent behavior
+ * and recording never allocates. Safe to record to and read from on different threads.
+ * @author Nex
+ *
+ */
+public class Histogram {
+
+	/**
+	 * The median, 99th percentile and maximum of one window of samples
+	 */
+	public static class Summary {
+
+		//Attributes
+		private final long p50, p99, max;
+
+		private Summary(long p50, long p99, long max){
+			this.p50 = p50;
+			this.p99 = p99;
+			this.max = max;
+		}
+
+		/**
+		 * Gets the median
+		 * @return The 50th percentile, in nanoseconds
+		 */
+		public long getP50(){
+			return p50;
+		}
+
+		/**
+		 * Gets the 99th percentile
+		 * @return The 99th percentile, in nanoseconds
+		 */
+		public long getP99(){
+			return p99;
+		}
+
+		/**
+		 * Gets the largest sample
+		 * @return The maximum, in nanoseconds
+		 */
+		public long getMax(){
+			return max;
+		}
+	}
+
+	//Attributes
+	private final long[] samples;		//Ring of the most recent samples
+	private long[] sorted;				//Scratch array used when summarizing
+	private int next;					//Index the next sample is written to
+	private long count;					//Total number of samples ever recorded
+
+	/**
+	 * Constructs a histogram
+	 * @param windowSize The number of recent samples to summarize
+	 */
+	public Histogram(int windowSize) {
+		samples = new long[Math.max(1, windowSize)];
+		sorted = new long[samples.length];
+		next = 0;
+		count = 0;
+	}
+
+	/**
+	 * Records a duration
+	 * @param nanos The duration, in nanoseconds
+	 */
+	public synchronized void record(long nanos){
+		samples[next] = nanos;
+		next = (next + 1) % samples.length;
+		count++;
+	}
+
+	/**
+	 * Gets the number of samples ever recorded
+	 * @return The total sample count
+	 */
+	public synchronized long getCount(){
+		return count;
+	}
+
+	/**
+	 * Gets the median of the recent samples
+	 * @return The 50th percentile, in nanoseconds
+	 */
+	public long getP50(){
+		return getPercentile(0.5);
+	}
+
+	/**
+	 * Gets the 99th percentile of the recent samples
+	 * @return The 99th percentile, in nanoseconds
+	 */
+	public long getP99(){
+		return getPercentile(0.99);
+	}
+
+	/**
+	 * Gets the largest of the recent samples
+	 * @return The maximum, in nanoseconds
+	 */
+	public long getMax(){
+		return getPercentile(1.0);
+	}
+
+	/**
+	 * Gets a percentile of the recent samples
+	 * @param fraction The percentile as a fraction, 0.5 for the median, 1 for the maximum
+	 * @return The sample at that percentile, in nanoseconds, or 0 if nothing has been recorded
+	 */
+	public synchronized long getPercentile(double fraction){
+		int n = sortWindow();
+		return pick(fraction, n);
+	}
+
+	/**
+	 * Gets the median, 99th percentile and maximum of the recent samples, all from the same window.
+	 * Sorts the window once, so prefer this to reading the percentiles one at a time.
+	 * @return The summary, all 0 if nothing has been recorded
+	 */
+	public synchronized Summary summarize(){
+		int n = sortWindow();
+		return new Summary(pick(0.5, n), pick(0.99, n), pick(1.0, n));
+	}
+
+	/**
+	 * Copies the recent samples into the scratch array and sorts them. Call while holding this histogram's lock.
+	 * @return The number of samples sorted
+	 */
+	private int sortWindow(){
+		int n = (int)Math.min(count, samples.length);
+		System.arraycopy(samples, 0, sorted, 0, n);
+		Arrays.sort(sorted, 0, n);
+		return n;
+	}
+
+	/**
+	 * Picks a percentile out of the sorted samples
+	 * @param fraction The percentile as a fraction
+	 * @param n The number of sorted samples
+	 * @return The sample at that percentile, or 0 if there are none
+	 */
+	private long pick(double fraction, int n){
+		if(n == 0) return 0;
+		int index = (int)Math.ceil(fraction * n) - 1;
+		return sorted[Math.max(0, Math.min(n - 1, index))];
+	}
+
+}
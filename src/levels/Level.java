@@ -18,6 +18,7 @@ public class Level {
 
 	//Attributes
 	private ArrayList<GameObject> objects;
+	private StaticGeometry geometry;			//Walls and floors which never move, kept as plain rectangles
 
 	//Accessors / Modifiers
 	/**
@@ -28,6 +29,14 @@ public class Level {
 		return objects;
 	}
 
+	/**
+	 * Gets the static geometry of this level
+	 * @return The level's static geometry, empty if the level has none
+	 */
+	public StaticGeometry getGeometry(){
+		return geometry;
+	}
+
 	/**
 	 * Add an object to the list of objects in this level
 	 * @param objToAdd The object you want to add
@@ -48,24 +57,38 @@ public class Level {
 	 */
 	public void init() {
 		objects = new ArrayList<GameObject>();
+		geometry = new StaticGeometry();
 	}
 
 
 	/**
-	 * Loads a level's contents into the current state
+	 * Loads a level's contents into the current state of the most recently constructed engine.
+	 * Use {@link #load(EngineState)} when more than one engine may exist.
 	 */
 	public void load(){
-		EngineState currentState = Engine.currentInstance.getCurrentState();
+		load(Engine.currentInstance.getCurrentState());
+	}
+
+	/**
+	 * Loads a level's contents into an engine state
+	 * @param target The engine state to add this level's objects and static geometry to
+	 */
+	public void load(EngineState target){
 		ArrayList<GameObject> copyList = new ArrayList<GameObject>(objects);
 		for(GameObject obj : copyList){
-			currentState.addObj(obj);
+			target.addObj(obj);
+		}
+		if(geometry.size() > 0 && !target.getStaticGeometry().contains(geometry)){
+			target.addStaticGeometry(geometry);
 		}
 	}
 
 	/**
-	 * Optimizes a level by combining adjacent gameObjects of proper dimensions
+	 * Optimizes a level by combining adjacent gameObjects of proper dimensions, and adjacent static rectangles
 	 */
 	public void optimize(){
+		geometry.optimize();
+
 		//Create hashmap of XPositions to objects
 		HashMap<Integer, ArrayList<GameObject>> map = new HashMap<Integer,  ArrayList<GameObject>>();
 
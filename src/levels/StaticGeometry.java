@@ -0,0 +1,342 @@
+package levels;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import objects.GameObject;
+
+/**
+ * Level geometry which never moves, turns or changes state, such as walls and floors, kept as plain rectangles.
+ *
+ * Each rectangle is four floats and the index of its material, a color and whether it is solid, shared by
+ * every rectangle made of it. There are no per-rectangle shapes, vectors or state stacks, so a level with millions
+ * of walls costs a few tens of bytes per wall rather than a full gameObject each.
+ * Rectangles are positioned by their top left corner, like a gameObject's collision box.
+ *
+ * A uniform grid indexes the rectangles, so collision and drawing only look at the cells they cover.
+ * The grid is built the first time it is needed after rectangles are added. Build the geometry fully before adding it
+ * to an {@link state.engine.EngineState}: once added it is read by the simulation and the renderer at the same time,
+ * and must not be changed.
+ * @author Nex
+ *
+ */
+public class StaticGeometry {
+
+	//Immutable Attributes
+	public static final double DEFAULT_CELL_SIZE = 256;
+
+	//Attributes
+	private final double cellSize;
+	private float[] x, y, width, height;
+	private short[] materials;						//Index of each rectangle's material
+	private int count;
+	private Color[] materialColors;					//Color of each material
+	private boolean[] materialSolid;				//Whether each material is solid
+	private int materialCount;
+	private HashMap<Color, Integer> solidMaterials, nonSolidMaterials;	//Material index by color, so rectangles share them
+
+	//Grid attributes
+	private volatile boolean indexed;				//Is the grid up to date with the rectangles
+	private double gridX, gridY;					//World position of the grid's top left corner
+	private int columns, rows;
+	private int[] cellStart;						//Start of each cell's run in cellItems, with one extra entry for the end
+	private int[] cellItems;						//Rectangle indices, grouped by cell
+
+	/**
+	 * Constructs empty static geometry with the default grid cell size
+	 */
+	public StaticGeometry() {
+		this(DEFAULT_CELL_SIZE);
+	}
+
+	/**
+	 * Constructs empty static geometry
+	 * @param cellSize Width and height of each grid cell in world units
+	 */
+	public StaticGeometry(double cellSize) {
+		this.cellSize = cellSize;
+		x = new float[64];
+		y = new float[64];
+		width = new float[64];
+		height = new float[64];
+		materials = new short[64];
+		count = 0;
+		materialColors = new Color[8];
+		materialSolid = new boolean[8];
+		materialCount = 0;
+		solidMaterials = new HashMap<Color, Integer>();
+		nonSolidMaterials = new HashMap<Color, Integer>();
+		indexed = false;
+	}
+
+	//Accessors
+	/**
+	 * Gets the number of rectangles
+	 * @return The rectangle count
+	 */
+	public int size(){
+		return count;
+	}
+
+	/**
+	 * Gets the number of distinct materials the rectangles are made of
+	 * @return The material count
+	 */
+	public int getMaterialCount(){
+		return materialCount;
+	}
+
+	/**
+	 * Gets the color of a rectangle
+	 * @param index Index of the rectangle
+	 * @return Its material's color
+	 */
+	public Color getColor(int index){
+		return materialColors[materials[index]];
+	}
+
+	/**
+	 * Gets whether a rectangle blocks movable objects
+	 * @param index Index of the rectangle
+	 * @return True if its material is solid
+	 */
+	public boolean isSolid(int index){
+		return materialSolid[materials[index]];
+	}
+
+	//Methods
+	/**
+	 * Adds a rectangle
+	 * @param rx X position of the top left corner
+	 * @param ry Y position of the top left corner
+	 * @param w Width
+	 * @param h Height
+	 * @param color Color the rectangle is drawn with
+	 * @param solid Whether the rectangle blocks movable objects
+	 * @return Index of the new rectangle
+	 */
+	public int addRect(double rx, double ry, double w, double h, Color color, boolean solid){
+		if(count == x.length){
+			int capacity = count * 2;
+			x = Arrays.copyOf(x, capacity);
+			y = Arrays.copyOf(y, capacity);
+			width = Arrays.copyOf(width, capacity);
+			height = Arrays.copyOf(height, capacity);
+			materials = Arrays.copyOf(materials, capacity);
+		}
+		x[count] = (float)rx;
+		y[count] = (float)ry;
+		width[count] = (float)w;
+		height[count] = (float)h;
+		materials[count] = (short)getMaterial(color, solid);
+		indexed = false;
+		return count++;
+	}
+
+	/**
+	 * Gets the index of a material, adding it if it is new
+	 * @param color The material's color
+	 * @param solid Whether the material is solid
+	 * @return The material index
+	 */
+	private int getMaterial(Color color, boolean solid){
+		HashMap<Color, Integer> byColor = solid ? solidMaterials : nonSolidMaterials;
+		Integer material = byColor.get(color);
+		if(material == null){
+			if(materialCount > Short.MAX_VALUE) throw new IllegalStateException("Too many static geometry materials.");
+			if(materialCount == materialColors.length){
+				materialColors = Arrays.copyOf(materialColors, materialCount * 2);
+				materialSolid = Arrays.copyOf(materialSolid, materialCount * 2);
+			}
+			material = materialCount++;
+			materialColors[material] = color;
+			materialSolid[material] = solid;
+			byColor.put(color, material);
+		}
+		return material;
+	}
+
+	/**
+	 * Combines rectangles of the same material, X position and width which are stacked directly on top of each other,
+	 * the same way {@link Level#optimize()} combines walls. Rectangles are expected in the order the level loader adds them,
+	 * one row at a time from the top.
+	 */
+	public void optimize(){
+		HashMap<Long, Integer> columnTops = new HashMap<Long, Integer>();	//Last kept rectangle in each column of matching rectangles
+		int kept = 0;
+		for(int i = 0; i < count; i++){
+			long key = ((long)Float.floatToIntBits(x[i]) << 32) ^ ((long)Float.floatToIntBits(width[i]) << 16) ^ materials[i];
+			Integer above = columnTops.get(key);
+			if(above != null && x[above] == x[i] && width[above] == width[i] && materials[above] == materials[i]
+					&& y[above] + height[above] == y[i]){
+				height[above] += height[i];
+				continue;
+			}
+			x[kept] = x[i];
+			y[kept] = y[i];
+			width[kept] = width[i];
+			height[kept] = height[i];
+			materials[kept] = materials[i];
+			columnTops.put(key, kept);
+			kept++;
+		}
+		count = kept;
+		indexed = false;
+	}
+
+	/**
+	 * Checks whether a box overlaps any solid rectangle
+	 * @param bx X position of the box's top left corner
+	 * @param by Y position of the box's top left corner
+	 * @param bw Width of the box
+	 * @param bh Height of the box
+	 * @return Index of an overlapping solid rectangle, or -1 if there is none
+	 */
+	public int findSolidOverlap(double bx, double by, double bw, double bh){
+		ensureIndex();
+		if(count == 0) return -1;
+		int minColumn = clampColumn(bx), maxColumn = clampColumn(bx + bw);
+		int minRow = clampRow(by), maxRow = clampRow(by + bh);
+		for(int row = minRow; row <= maxRow; row++){
+			for(int column = minColumn; column <= maxColumn; column++){
+				int cell = row * columns + column;
+				for(int c = cellStart[cell]; c < cellStart[cell + 1]; c++){
+					int i = cellItems[c];
+					if(materialSolid[materials[i]]
+							&& x[i] < bx + bw && x[i] + width[i] > bx
+							&& y[i] < by + bh && y[i] + height[i] > by){
+						return i;
+					}
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks whether a gameObject's bounding box overlaps any solid rectangle, using its world position
+	 * @param obj The gameObject to check
+	 * @return True if it overlaps solid geometry
+	 */
+	public boolean isColliding(GameObject obj){
+		return findSolidOverlap(obj.getWorldPos().getComponent(0), obj.getWorldPos().getComponent(1), obj.getWidth(), obj.getHeight()) >= 0;
+	}
+
+	/**
+	 * Fills every rectangle overlapping a view area, changing color only when the material changes.
+	 * @param g2d Renderer, in world coordinates
+	 * @param view Area to draw, in world coordinates, or null to draw everything
+	 */
+	public void draw(Graphics2D g2d, Rectangle2D view){
+		ensureIndex();
+		if(count == 0) return;
+		Rectangle2D.Double rect = new Rectangle2D.Double();
+		Color current = null;
+
+		if(view == null){
+			for(int i = 0; i < count; i++){
+				current = fill(g2d, i, rect, current);
+			}
+			return;
+		}
+
+		double vx = view.getX(), vy = view.getY(), vw = view.getWidth(), vh = view.getHeight();
+		int minColumn = clampColumn(vx), maxColumn = clampColumn(vx + vw);
+		int minRow = clampRow(vy), maxRow = clampRow(vy + vh);
+		for(int row = minRow; row <= maxRow; row++){
+			for(int column = minColumn; column <= maxColumn; column++){
+				int cell = row * columns + column;
+				for(int c = cellStart[cell]; c < cellStart[cell + 1]; c++){
+					int i = cellItems[c];
+					//Rectangles spanning several cells are drawn from the first cell of theirs the view covers
+					if(Math.max(clampColumn(x[i]), minColumn) != column || Math.max(clampRow(y[i]), minRow) != row) continue;
+					if(x[i] < vx + vw && x[i] + width[i] > vx && y[i] < vy + vh && y[i] + height[i] > vy){
+						current = fill(g2d, i, rect, current);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Fills one rectangle
+	 * @param g2d Renderer
+	 * @param i Index of the rectangle
+	 * @param rect Scratch rectangle
+	 * @param current Color the renderer is set to
+	 * @return Color the renderer is now set to
+	 */
+	private Color fill(Graphics2D g2d, int i, Rectangle2D.Double rect, Color current){
+		Color color = materialColors[materials[i]];
+		if(color != current) g2d.setColor(color);
+		rect.setRect(x[i], y[i], width[i], height[i]);
+		g2d.fill(rect);
+		return color;
+	}
+
+	/**
+	 * Builds the grid if rectangles have been added since it was last built
+	 */
+	private void ensureIndex(){
+		if(!indexed) buildIndex();
+	}
+
+	/**
+	 * Builds the grid. Each rectangle is listed in every cell it covers.
+	 */
+	private synchronized void buildIndex(){
+		if(indexed) return;
+
+		//Size the grid to the rectangles' bounds
+		double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+		for(int i = 0; i < count; i++){
+			minX = Math.min(minX, x[i]);
+			minY = Math.min(minY, y[i]);
+			maxX = Math.max(maxX, x[i] + width[i]);
+			maxY = Math.max(maxY, y[i] + height[i]);
+		}
+		if(count == 0){
+			minX = minY = maxX = maxY = 0;
+		}
+		gridX = minX;
+		gridY = minY;
+		columns = Math.max(1, (int)Math.ceil((maxX - minX) / cellSize));
+		rows = Math.max(1, (int)Math.ceil((maxY - minY) / cellSize));
+
+		//Count each cell's rectangles, then place them, so every cell's indices sit together in one array
+		cellStart = new int[columns * rows + 1];
+		for(int i = 0; i < count; i++){
+			for(int row = clampRow(y[i]); row <= clampRow(y[i] + height[i]); row++){
+				for(int column = clampColumn(x[i]); column <= clampColumn(x[i] + width[i]); column++){
+					cellStart[row * columns + column + 1]++;
+				}
+			}
+		}
+		for(int cell = 0; cell < columns * rows; cell++){
+			cellStart[cell + 1] += cellStart[cell];
+		}
+		cellItems = new int[cellStart[columns * rows]];
+		int[] fill = Arrays.copyOf(cellStart, columns * rows);
+		for(int i = 0; i < count; i++){
+			for(int row = clampRow(y[i]); row <= clampRow(y[i] + height[i]); row++){
+				for(int column = clampColumn(x[i]); column <= clampColumn(x[i] + width[i]); column++){
+					cellItems[fill[row * columns + column]++] = i;
+				}
+			}
+		}
+
+		indexed = true;
+	}
+
+	private int clampColumn(double worldX){
+		return Math.max(0, Math.min(columns - 1, (int)Math.floor((worldX - gridX) / cellSize)));
+	}
+
+	private int clampRow(double worldY){
+		return Math.max(0, Math.min(rows - 1, (int)Math.floor((worldY - gridY) / cellSize)));
+	}
+
+}
@@ -5,7 +5,6 @@ import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferByte;
 import java.io.File;
-import java.io.FilenameFilter;
 import java.io.IOException;
 import java.util.HashMap;
 
@@ -31,16 +30,7 @@ public abstract class LevelLoader extends Loader<Level> {
 		HashMap<String, Level> levels = new HashMap<String, Level>();
 		
 		//for each file in the directory which has the proper extension
-		for(File f : getDirectory().listFiles(
-			new FilenameFilter(){
-
-				@Override
-				public boolean accept(File arg0, String arg1) {
-					return arg1.endsWith(ext);
-				}
-					
-			}
-		)){
+		for(File f : getValidFiles()){
 			//Store the filename
 			String fileName = f.getName();
 			//Create key for hashmap
@@ -62,47 +52,9 @@ public abstract class LevelLoader extends Loader<Level> {
 				continue;
 			}
 			
-			//Create level
-			Level thisLevel = new Level();
-			
-			//Get level width and height and num pixels
-			int width = levelPicture.getWidth();
-			int height = levelPicture.getHeight();
-			
-						
-			//Set variables to help build game objects out of pixels
-			boolean spanningObject = false;
-			int indexObjStart = 0;
-			Color previousColor = Color.white;
+			//Build the level from the image's pixels
+			Level thisLevel = parseLevel(levelPicture);
 			
-			//For each row of pixels
-			for(int i = 0; i < height; i++){
-				//For each column of pixels
-				for(int j = 0; j < width; j++){
-					Color c = new Color(levelPicture.getRGB(i, j));
-					
-					//If the color is white
-					if(c.equals(Color.white)){
-						if(!previousColor.equals(Color.white)){
-							//Create object
-							thisLevel.addObject(makeObject(i, indexObjStart, j, previousColor));
-						}
-					}
-					else if(!previousColor.equals(c)){
-						if(!previousColor.equals(Color.white)){
-							thisLevel.addObject(makeObject(i, indexObjStart, j, previousColor));
-						}
-						
-						indexObjStart =j;
-						
-					}	
-					previousColor = c;
-				}
-				if(!previousColor.equals(Color.white)){
-					thisLevel.addObject(makeObject(i, indexObjStart, width, previousColor));
-				}
-				previousColor = Color.white;
-			}
 			//Optimize the level
 			thisLevel.optimize();
 			
@@ -113,6 +65,75 @@ public abstract class LevelLoader extends Loader<Level> {
 		return levels;
 	}
 	
+	/**
+	 * Builds an unoptimized level from an image.
+	 * Each horizontal run of same colored, non white pixels becomes one object.
+	 * @param levelPicture The image to build the level from
+	 * @return A level holding an object for every run of pixels
+	 */
+	public Level parseLevel(BufferedImage levelPicture){
+		//Create level
+		Level thisLevel = new Level();
+		
+		//Get level width and height and num pixels
+		int width = levelPicture.getWidth();
+		int height = levelPicture.getHeight();
+		
+					
+		//Set variables to help build game objects out of pixels
+		boolean spanningObject = false;
+		int indexObjStart = 0;
+		Color previousColor = Color.white;
+		
+		//For each row of pixels
+		for(int i = 0; i < height; i++){
+			//For each column of pixels
+			for(int j = 0; j < width; j++){
+				Color c = new Color(levelPicture.getRGB(i, j));
+				
+				//If the color is white
+				if(c.equals(Color.white)){
+					if(!previousColor.equals(Color.white)){
+						//Create object
+						addRun(thisLevel, i, indexObjStart, j, previousColor);
+					}
+				}
+				else if(!previousColor.equals(c)){
+					if(!previousColor.equals(Color.white)){
+						addRun(thisLevel, i, indexObjStart, j, previousColor);
+					}
+					
+					indexObjStart =j;
+					
+				}	
+				previousColor = c;
+			}
+			if(!previousColor.equals(Color.white)){
+				addRun(thisLevel, i, indexObjStart, width, previousColor);
+			}
+			previousColor = Color.white;
+		}
+		
+		return thisLevel;
+	}
+	
+	/**
+	 * Adds a run of same colored pixels to a level, as a static rectangle if its color is static, otherwise as a gameObject
+	 * @param level The level being built
+	 * @param pixelRow Row of image the run is in
+	 * @param startIndex Pixel column of image that the run started
+	 * @param pixelColumn Pixel column of image that the run ends
+	 * @param color The run's color
+	 */
+	private void addRun(Level level, int pixelRow, int startIndex, int pixelColumn, Color color){
+		if(isStatic(color)){
+			level.getGeometry().addRect(startIndex * 20, pixelRow * 20, (pixelColumn - startIndex) * 20, 20, color, isStaticSolid(color));
+		}
+		else{
+			level.addObject(makeObject(pixelRow, startIndex, pixelColumn, color));
+		}
+	}
+	
 	/**
 	 * 
 	 * @param pixelRow Row of image object is in
@@ -187,5 +208,26 @@ public abstract class LevelLoader extends Loader<Level> {
 	 */
 	abstract protected void mutateObject(GameObject obj, Color c);
 	
+	/**
+	 * Decides whether pixels of a color become static geometry instead of gameObjects.
+	 * Static geometry is far lighter than a gameObject per wall, but never moves, has no state or triggers,
+	 * and is never passed to mutateObject. Returns false by default, so every color becomes a gameObject.
+	 * @param c Color of object in level image
+	 * @return True to load the color as static geometry
+	 */
+	protected boolean isStatic(Color c){
+		return false;
+	}
+	
+	/**
+	 * Decides whether static geometry of a color blocks movable objects. Only asked for colors which are static.
+	 * Returns true by default.
+	 * @param c Color of object in level image
+	 * @return True if the geometry is solid
+	 */
+	protected boolean isStaticSolid(Color c){
+		return true;
+	}
+	
 
 }
@@ -36,10 +36,11 @@ public abstract class Loader<T> {
 	/**
 	 * Returns an array of files in the loaded filePath that end with the specified extension
 	 * which this loader is designed to load
-	 * @return An array of files in the loader's given directory which end with the given extension
+	 * @return An array of files in the loader's given directory which end with the given extension,
+	 * empty if the directory does not exist
 	 */
 	public File[] getValidFiles(){
-		return getDirectory().listFiles(
+		File[] files = getDirectory().listFiles(
 				new FilenameFilter(){
 
 					@Override
@@ -49,6 +50,10 @@ public abstract class Loader<T> {
 					}
 
 				});
+		
+		//listFiles returns null when the directory is missing
+		if(files == null) return new File[0];
+		return files;
 	}
 	
 	
@@ -0,0 +1,122 @@
+package mathematics;
+
+/**
+ * Sorts a sequence of positioned things along a Z-order (Morton) curve a little at a time.
+ *
+ * A position's Z-order key interleaves the bits of its grid cell's column and row, so things near each other in the world
+ * tend to sit near each other in the sorted sequence. Sorting a list of objects this way means work over one area of the
+ * world walks one stretch of memory instead of jumping around it.
+ *
+ * The sort is an insertion sort which stops whenever its budget of steps runs out and picks up where it left off
+ * the next time it is run, so it never costs more than its budget in one go. Each full pass leaves the sequence sorted
+ * as of the keys it saw. Things keep moving while it runs, but they move little between passes,
+ * so the sequence stays close to sorted and later passes are cheap.
+ * @author Nex
+ *
+ */
+public class ZOrderSort {
+
+	/**
+	 * A sequence which can be sorted along a Z-order curve
+	 */
+	public interface Sequence {
+		/**
+		 * Gets the number of things in the sequence
+		 * @return The length of the sequence
+		 */
+		int size();
+
+		/**
+		 * Gets the Z-order key of a thing, usually from {@link ZOrderSort#key(double, double, double)}
+		 * @param index Index of the thing
+		 * @return Its key
+		 */
+		long key(int index);
+
+		/**
+		 * Swaps two things in the sequence
+		 * @param a Index of the first thing
+		 * @param b Index of the second thing
+		 */
+		void swap(int a, int b);
+	}
+
+	//Attributes
+	private int cursor;						//Index of the next thing to insert
+	private int hole;						//Index the thing being inserted is currently at
+
+	/**
+	 * Constructs a sort which starts at the front of its sequence
+	 */
+	public ZOrderSort() {
+		reset();
+	}
+
+	//Methods
+	/**
+	 * Computes the Z-order key of a position
+	 * @param x X position
+	 * @param y Y position
+	 * @param cellSize Width and height of a grid cell, things in the same cell share a key
+	 * @return The key. Compare keys as unsigned, as {@link #sort(Sequence, int)} does
+	 */
+	public static long key(double x, double y, double cellSize){
+		//Flip the sign bits so negative cells come before positive ones once compared as unsigned
+		int column = (int)Math.floor(x / cellSize) ^ Integer.MIN_VALUE;
+		int row = (int)Math.floor(y / cellSize) ^ Integer.MIN_VALUE;
+		return spread(column) | (spread(row) << 1);
+	}
+
+	/**
+	 * Spreads the bits of an int out to every other bit of a long
+	 * @param n The int
+	 * @return The long, with bit i of n at bit 2i
+	 */
+	private static long spread(int n){
+		long v = n & 0xFFFFFFFFL;
+		v = (v | (v << 16)) & 0x0000FFFF0000FFFFL;
+		v = (v | (v << 8)) & 0x00FF00FF00FF00FFL;
+		v = (v | (v << 4)) & 0x0F0F0F0F0F0F0F0FL;
+		v = (v | (v << 2)) & 0x3333333333333333L;
+		v = (v | (v << 1)) & 0x5555555555555555L;
+		return v;
+	}
+
+	/**
+	 * Sorts part of a sequence, continuing from where the last call stopped
+	 * @param sequence The sequence, the same one every call
+	 * @param budget Most steps to take, each comparing two keys and perhaps swapping them
+	 * @return The number of swaps made
+	 */
+	public int sort(Sequence sequence, int budget){
+		int size = sequence.size();
+		if(size < 2) return 0;
+		//Things may have been added or removed since the last call
+		if(cursor >= size || hole > cursor) reset();
+
+		int swaps = 0;
+		for(int step = 0; step < budget; step++){
+			if(hole > 0 && sequence.key(hole - 1) + Long.MIN_VALUE > sequence.key(hole) + Long.MIN_VALUE){
+				sequence.swap(hole - 1, hole);
+				hole--;
+				swaps++;
+			}
+			else{
+				//This thing is in place, move on to the next, wrapping around to start another pass
+				cursor++;
+				if(cursor >= size) cursor = 1;
+				hole = cursor;
+			}
+		}
+		return swaps;
+	}
+
+	/**
+	 * Starts the next call over from the front of the sequence
+	 */
+	public void reset(){
+		cursor = 1;
+		hole = 1;
+	}
+
+}
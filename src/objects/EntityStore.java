@@ -0,0 +1,586 @@
+package objects;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import mathematics.Vec;
+import mathematics.ZOrderSort;
+
+/**
+ * Holds large numbers of simple entities as parallel primitive arrays rather than as {@link GameObject}s.
+ *
+ * Each entity has a position, the position it had at the start of the tick, a size, a forward vector, a color and flags.
+ * Entities are referred to by int handles. A handle packs a slot in its low 24 bits and that slot's generation
+ * in the 7 bits above. Destroying an entity frees its slot for a later entity but bumps the slot's generation, so the old
+ * handle stops being alive rather than referring to the new entity. Generations wrap after 127 reuses of a slot,
+ * so a handle kept that long after its entity was destroyed may come alive again; do not keep handles after destroying them.
+ * Internally entities are packed densely, so updating them walks each array front to back with no pointer chasing.
+ *
+ * Entities have no states or triggers. Instead the store runs its {@link Behavior}s over every entity at once each tick.
+ * Add a store to an {@link state.engine.EngineState} to update it alongside the state's objects:
+ * visible entities are drawn, and solid entities collide with solid gameObjects. Entities do not collide with each other.
+ * @author Nex
+ *
+ */
+public class EntityStore {
+
+	/**
+	 * Updates every entity in a store at once
+	 */
+	public interface Behavior {
+		/**
+		 * Updates a range of entities. Read and write them through the store's dense index accessors.
+		 * @param store The store being updated
+		 * @param start Dense index of the first entity to update
+		 * @param end Dense index after the last entity to update
+		 */
+		void update(EntityStore store, int start, int end);
+	}
+
+	//Flags
+	public static final int VISIBLE = 1;
+	public static final int SOLID = 2;			//Collides with solid gameObjects, entities without it pass through everything
+	public static final int MOVABLE = 4;		//Reverted to its previous position when it collides with a solid gameObject
+
+	//Immutable Attributes
+	public static final int INVALID_HANDLE = -1;
+	public static final int MAX_ENTITIES = 1 << 24;	//Most entities one store can hold at once
+	private static final int SLOT_MASK = MAX_ENTITIES - 1;
+	private static final int GENERATION_MASK = 0x7F;	//Generations stay below the sign bit, so no handle is negative
+
+	//Attributes
+	private int count;
+	private double[] x, y;						//Position
+	private double[] previousX, previousY;		//Position at the start of the tick
+	private double[] width, height;
+	private double[] forwardX, forwardY;
+	private int[] flags;
+	private Color[] colors;
+
+	private int[] handleOf;						//Handle of the entity at each dense index
+	private int[] denseOf;						//Dense index of the entity in each slot, -1 if the slot is free
+	private int[] generations;					//Current generation of each slot, starting at 1
+	private int[] freeSlots;					//Slots of destroyed entities, reused before new ones are made
+	private int numFreeSlots;
+	private int numSlots;
+
+	private ArrayList<Behavior> behaviors;
+	private boolean updating;					//Are behaviors running, destroys are deferred while they do
+	private int[] pendingDestroys;
+	private int numPendingDestroys;
+
+	private int spatialSortBudget;				//Sort steps taken per update, 0 to never sort
+	private double spatialSortCellSize;
+	private ZOrderSort spatialSort;
+	private ZOrderSort.Sequence spatialOrder;	//The dense arrays, sorted by position
+
+	/**
+	 * Constructs an empty entity store
+	 */
+	public EntityStore() {
+		this(256);
+	}
+
+	/**
+	 * Constructs an empty entity store with room for a number of entities before it needs to grow
+	 * @param capacity Initial capacity
+	 */
+	public EntityStore(int capacity) {
+		capacity = Math.max(1, capacity);
+		count = 0;
+		x = new double[capacity];
+		y = new double[capacity];
+		previousX = new double[capacity];
+		previousY = new double[capacity];
+		width = new double[capacity];
+		height = new double[capacity];
+		forwardX = new double[capacity];
+		forwardY = new double[capacity];
+		flags = new int[capacity];
+		colors = new Color[capacity];
+		handleOf = new int[capacity];
+
+		denseOf = new int[capacity];
+		generations = new int[capacity];
+		freeSlots = new int[capacity];
+		numFreeSlots = 0;
+		numSlots = 0;
+
+		behaviors = new ArrayList<Behavior>();
+		updating = false;
+		pendingDestroys = new int[16];
+		numPendingDestroys = 0;
+
+		spatialSortBudget = 0;
+		spatialSortCellSize = 64;
+		spatialSort = new ZOrderSort();
+		spatialOrder = new ZOrderSort.Sequence(){
+			@Override
+			public int size() {
+				return count;
+			}
+
+			@Override
+			public long key(int index) {
+				return ZOrderSort.key(x[index], y[index], spatialSortCellSize);
+			}
+
+			@Override
+			public void swap(int a, int b) {
+				swapDense(a, b);
+			}
+		};
+	}
+
+	//Entity lifetime
+	/**
+	 * Creates an entity. Entities created while behaviors run are first updated next tick.
+	 * @param xx X position
+	 * @param yy Y position
+	 * @param w Width
+	 * @param h Height
+	 * @param fwd Forward vector, copied
+	 * @param entityFlags Any of {@link #VISIBLE}, {@link #SOLID} and {@link #MOVABLE}
+	 * @param color Color the entity is filled with when visible
+	 * @return The new entity's handle, which may reuse the slot of a destroyed entity but never equals its handle
+	 * @throws IllegalStateException if the store already holds {@link #MAX_ENTITIES} entities
+	 */
+	public int create(double xx, double yy, double w, double h, Vec fwd, int entityFlags, Color color){
+		if(count == x.length) grow(count * 2);
+
+		int slot;
+		if(numFreeSlots > 0){
+			slot = freeSlots[--numFreeSlots];
+		}
+		else{
+			if(numSlots == MAX_ENTITIES) throw new IllegalStateException("An entity store can not hold more than " + MAX_ENTITIES + " entities.");
+			if(numSlots == denseOf.length){
+				denseOf = Arrays.copyOf(denseOf, numSlots * 2);
+				generations = Arrays.copyOf(generations, numSlots * 2);
+			}
+			slot = numSlots++;
+			generations[slot] = 1;
+		}
+		int handle = (generations[slot] << 24) | slot;
+
+		int i = count++;
+		denseOf[slot] = i;
+		handleOf[i] = handle;
+
+		x[i] = previousX[i] = xx;
+		y[i] = previousY[i] = yy;
+		width[i] = w;
+		height[i] = h;
+		forwardX[i] = fwd.getComponent(0);
+		forwardY[i] = fwd.getComponent(1);
+		flags[i] = entityFlags;
+		colors[i] = color;
+		return handle;
+	}
+
+	/**
+	 * Destroys an entity. Its slot may be given to a later entity, but its handle stops being alive.
+	 * Entities destroyed while behaviors run are removed once they finish.
+	 * Do not keep the handle afterwards, see the class description for when generations wrap.
+	 * @param handle The entity to destroy
+	 */
+	public void destroy(int handle){
+		if(!isAlive(handle)) return;
+		if(updating){
+			if(numPendingDestroys == pendingDestroys.length){
+				pendingDestroys = Arrays.copyOf(pendingDestroys, numPendingDestroys * 2);
+			}
+			pendingDestroys[numPendingDestroys++] = handle;
+			return;
+		}
+
+		//Move the last entity into the hole so the arrays stay packed
+		int slot = handle & SLOT_MASK;
+		int hole = denseOf[slot];
+		int last = --count;
+		if(hole != last){
+			x[hole] = x[last];
+			y[hole] = y[last];
+			previousX[hole] = previousX[last];
+			previousY[hole] = previousY[last];
+			width[hole] = width[last];
+			height[hole] = height[last];
+			forwardX[hole] = forwardX[last];
+			forwardY[hole] = forwardY[last];
+			flags[hole] = flags[last];
+			colors[hole] = colors[last];
+			handleOf[hole] = handleOf[last];
+			denseOf[handleOf[hole] & SLOT_MASK] = hole;
+		}
+		colors[last] = null;
+		freeSlot(slot);
+	}
+
+	/**
+	 * Frees a slot and bumps its generation, so handles to it stop being alive
+	 * @param slot The slot to free
+	 */
+	private void freeSlot(int slot){
+		denseOf[slot] = -1;
+		//Skip the generation 0, so every handle stays distinct from ones made before the wrap started
+		generations[slot] = (generations[slot] + 1) & GENERATION_MASK;
+		if(generations[slot] == 0) generations[slot] = 1;
+
+		if(numFreeSlots == freeSlots.length){
+			freeSlots = Arrays.copyOf(freeSlots, numFreeSlots * 2);
+		}
+		freeSlots[numFreeSlots++] = slot;
+	}
+
+	/**
+	 * Destroys every entity. Every handle stops being alive.
+	 */
+	public void clear(){
+		for(int i = 0; i < count; i++){
+			freeSlot(handleOf[i] & SLOT_MASK);
+		}
+		Arrays.fill(colors, 0, count, null);
+		count = 0;
+		numPendingDestroys = 0;
+	}
+
+	/**
+	 * Gets whether a handle refers to a living entity
+	 * @param handle The handle to check
+	 * @return True if the entity exists, false if it has been destroyed, even if its slot now holds another entity
+	 */
+	public boolean isAlive(int handle){
+		int slot = handle & SLOT_MASK;
+		return handle >= 0 && slot < numSlots && denseOf[slot] >= 0 && generations[slot] == handle >>> 24;
+	}
+
+	/**
+	 * Gets the dense index of a living entity
+	 * @param handle The entity
+	 * @return Its dense index
+	 * @throws IllegalArgumentException if the entity has been destroyed
+	 */
+	private int denseIndex(int handle){
+		if(!isAlive(handle)) throw new IllegalArgumentException("Entity handle " + handle + " is not alive.");
+		return denseOf[handle & SLOT_MASK];
+	}
+
+	/**
+	 * Gets the number of living entities
+	 * @return The entity count
+	 */
+	public int size(){
+		return count;
+	}
+
+	/**
+	 * Gets the dense index of an entity, which is valid until any entity is destroyed or the store sorts itself
+	 * @param handle The entity
+	 * @return Its dense index
+	 * @throws IllegalArgumentException if the entity has been destroyed
+	 */
+	public int indexOf(int handle){
+		return denseIndex(handle);
+	}
+
+	/**
+	 * Gets the handle of the entity at a dense index
+	 * @param index The dense index
+	 * @return The entity's handle
+	 */
+	public int handleAt(int index){
+		return handleOf[index];
+	}
+
+	/**
+	 * Sets whether entities are gradually sorted by position.
+	 * At the end of each update the dense arrays are sorted a little further along a Z-order curve of the entities' positions,
+	 * so entities near each other in the world end up near each other in the arrays, taking at most the budget's number of steps.
+	 * Sorting moves entities between dense indices, so behaviors should not depend on their order. Handles are unaffected.
+	 * @param budget Most sort steps taken per update, each comparing two entities and perhaps swapping them, 0 to stop sorting
+	 * @param cellSize Size of the grid cells entities are sorted by
+	 */
+	public void setSpatialSort(int budget, double cellSize){
+		if(cellSize <= 0) throw new IllegalArgumentException("Spatial sort cell size must be positive.");
+		spatialSortBudget = Math.max(0, budget);
+		spatialSortCellSize = cellSize;
+	}
+
+	/**
+	 * Swaps two entities' places in the dense arrays, keeping their handles
+	 * @param a Dense index of the first entity
+	 * @param b Dense index of the second entity
+	 */
+	private void swapDense(int a, int b){
+		double d;
+		d = x[a]; x[a] = x[b]; x[b] = d;
+		d = y[a]; y[a] = y[b]; y[b] = d;
+		d = previousX[a]; previousX[a] = previousX[b]; previousX[b] = d;
+		d = previousY[a]; previousY[a] = previousY[b]; previousY[b] = d;
+		d = width[a]; width[a] = width[b]; width[b] = d;
+		d = height[a]; height[a] = height[b]; height[b] = d;
+		d = forwardX[a]; forwardX[a] = forwardX[b]; forwardX[b] = d;
+		d = forwardY[a]; forwardY[a] = forwardY[b]; forwardY[b] = d;
+		int i = flags[a]; flags[a] = flags[b]; flags[b] = i;
+		Color c = colors[a]; colors[a] = colors[b]; colors[b] = c;
+		i = handleOf[a]; handleOf[a] = handleOf[b]; handleOf[b] = i;
+		denseOf[handleOf[a] & SLOT_MASK] = a;
+		denseOf[handleOf[b] & SLOT_MASK] = b;
+	}
+
+	//Behaviors
+	/**
+	 * Adds a behavior, run on every entity each tick after the behaviors added before it
+	 * @param behavior The behavior to add
+	 */
+	public void addBehavior(Behavior behavior){
+		behaviors.add(behavior);
+	}
+
+	/**
+	 * Removes a behavior
+	 * @param behavior The behavior to remove
+	 */
+	public void removeBehavior(Behavior behavior){
+		behaviors.remove(behavior);
+	}
+
+	/**
+	 * Updates every entity.
+	 * Records every position as the previous position, then runs each behavior over every entity.
+	 * Sorts the entities a little further by position if spatial sorting is set.
+	 * Called by the engine state this store has been added to.
+	 */
+	public void update(){
+		int end = count;
+		System.arraycopy(x, 0, previousX, 0, end);
+		System.arraycopy(y, 0, previousY, 0, end);
+
+		updating = true;
+		try{
+			for(int b = 0; b < behaviors.size(); b++){
+				behaviors.get(b).update(this, 0, end);
+			}
+		}
+		finally{
+			updating = false;
+		}
+
+		for(int i = 0; i < numPendingDestroys; i++){
+			destroy(pendingDestroys[i]);
+		}
+		numPendingDestroys = 0;
+
+		if(spatialSortBudget > 0) spatialSort.sort(spatialOrder, spatialSortBudget);
+	}
+
+	//Accessors by handle, mirroring GameObject. Each throws an IllegalArgumentException if the entity has been destroyed.
+	/**
+	 * Gets an entity's position
+	 * @param handle The entity
+	 * @return A new vector holding its position
+	 */
+	public Vec getPos(int handle){
+		int i = denseIndex(handle);
+		return new Vec(x[i], y[i]);
+	}
+
+	/**
+	 * Sets an entity's position
+	 * @param handle The entity
+	 * @param v The new position, copied
+	 */
+	public void setPos(int handle, Vec v){
+		int i = denseIndex(handle);
+		x[i] = v.getComponent(0);
+		y[i] = v.getComponent(1);
+	}
+
+	/**
+	 * Moves an entity
+	 * @param handle The entity
+	 * @param movementVec The vector to add to its position
+	 */
+	public void move(int handle, Vec movementVec){
+		int i = denseIndex(handle);
+		x[i] += movementVec.getComponent(0);
+		y[i] += movementVec.getComponent(1);
+	}
+
+	/**
+	 * Gets an entity's forward vector
+	 * @param handle The entity
+	 * @return A new vector holding its forward vector
+	 */
+	public Vec getForward(int handle){
+		int i = denseIndex(handle);
+		return new Vec(forwardX[i], forwardY[i]);
+	}
+
+	/**
+	 * Sets an entity's forward vector
+	 * @param handle The entity
+	 * @param v The new forward vector, copied
+	 */
+	public void setForward(int handle, Vec v){
+		int i = denseIndex(handle);
+		forwardX[i] = v.getComponent(0);
+		forwardY[i] = v.getComponent(1);
+	}
+
+	/**
+	 * Gets whether an entity has every one of some flags
+	 * @param handle The entity
+	 * @param mask The flags to check
+	 * @return True if all of them are set
+	 */
+	public boolean hasFlags(int handle, int mask){
+		return (flags[denseIndex(handle)] & mask) == mask;
+	}
+
+	/**
+	 * Sets or clears some of an entity's flags
+	 * @param handle The entity
+	 * @param mask The flags to change
+	 * @param set True to set them, false to clear them
+	 */
+	public void setFlags(int handle, int mask, boolean set){
+		int i = denseIndex(handle);
+		if(set) flags[i] |= mask;
+		else flags[i] &= ~mask;
+	}
+
+	/**
+	 * Sets an entity's color
+	 * @param handle The entity
+	 * @param color The new color
+	 */
+	public void setColor(int handle, Color color){
+		colors[denseIndex(handle)] = color;
+	}
+
+	/**
+	 * Checks if an entity's bounding box intersects a gameObject's, the same way {@link GameObject#isColliding(GameObject)} does
+	 * @param index Dense index of the entity
+	 * @param obj The gameObject to check with
+	 * @return Whether they intersect
+	 */
+	public boolean isColliding(int index, GameObject obj){
+		Vec objPos = obj.getWorldPos();
+		double ox = objPos.getComponent(0);
+		double oy = objPos.getComponent(1);
+		return x[index] < ox + obj.getWidth() && x[index] + width[index] > ox
+				&& y[index] < oy + obj.getHeight() && y[index] + height[index] > oy;
+	}
+
+	/**
+	 * Reverts an entity to its position at the start of the tick
+	 * @param index Dense index of the entity
+	 */
+	public void revert(int index){
+		x[index] = previousX[index];
+		y[index] = previousY[index];
+	}
+
+	//Dense arrays, for behaviors and engine internals.
+	//Indexed by dense index, only indices below size() hold entities. Arrays are replaced when the store grows.
+	/**
+	 * Gets the dense array of entity X positions
+	 * @return The array, shared with the store
+	 */
+	public double[] getX(){
+		return x;
+	}
+
+	/**
+	 * Gets the dense array of entity Y positions
+	 * @return The array, shared with the store
+	 */
+	public double[] getY(){
+		return y;
+	}
+
+	/**
+	 * Gets the dense array of entity X positions at the start of the tick
+	 * @return The array, shared with the store
+	 */
+	public double[] getPreviousX(){
+		return previousX;
+	}
+
+	/**
+	 * Gets the dense array of entity Y positions at the start of the tick
+	 * @return The array, shared with the store
+	 */
+	public double[] getPreviousY(){
+		return previousY;
+	}
+
+	/**
+	 * Gets the dense array of entity widths
+	 * @return The array, shared with the store
+	 */
+	public double[] getWidth(){
+		return width;
+	}
+
+	/**
+	 * Gets the dense array of entity heights
+	 * @return The array, shared with the store
+	 */
+	public double[] getHeight(){
+		return height;
+	}
+
+	/**
+	 * Gets the dense array of entity forward vector X components
+	 * @return The array, shared with the store
+	 */
+	public double[] getForwardX(){
+		return forwardX;
+	}
+
+	/**
+	 * Gets the dense array of entity forward vector Y components
+	 * @return The array, shared with the store
+	 */
+	public double[] getForwardY(){
+		return forwardY;
+	}
+
+	/**
+	 * Gets the dense array of entity flags
+	 * @return The array, shared with the store
+	 */
+	public int[] getFlags(){
+		return flags;
+	}
+
+	/**
+	 * Gets the dense array of entity colors
+	 * @return The array, shared with the store
+	 */
+	public Color[] getColors(){
+		return colors;
+	}
+
+	/**
+	 * Resizes every dense array, keeping the current entities
+	 * @param capacity The number of entities to make room for
+	 */
+	private void grow(int capacity){
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		previousX = Arrays.copyOf(previousX, capacity);
+		previousY = Arrays.copyOf(previousY, capacity);
+		width = Arrays.copyOf(width, capacity);
+		height = Arrays.copyOf(height, capacity);
+		forwardX = Arrays.copyOf(forwardX, capacity);
+		forwardY = Arrays.copyOf(forwardY, capacity);
+		flags = Arrays.copyOf(flags, capacity);
+		colors = Arrays.copyOf(colors, capacity);
+		handleOf = Arrays.copyOf(handleOf, capacity);
+	}
+
+}
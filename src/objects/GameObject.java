@@ -6,16 +6,32 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.RectangularShape;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
-import java.util.EmptyStackException;
-import java.util.Stack;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
+import engine.Engine;
+import engine.manager.SpriteManager;
 import mathematics.*;
 import sprites.Sprite;
+import state.engine.EngineState;
+import state.engine.ObjectHandles;
 import state.object.ObjectState;
 import triggers.Trigger;
 
 /**
  * Defines any object in the game
+ *
+ * An object may be given a parent with {@link #setParent(GameObject)}. Its position and forward vector are then local,
+ * relative to its parent's position and facing, and it is carried along as its parent moves and turns.
+ * World positions are worked out lazily: each object caches its world transform along with the local values and
+ * parent transform it was built from, and only rebuilds it when one of those has changed.
+ * Objects with no parent are their own world transform and pay nothing for the cache.
+ *
+ * The state stack is kept in plain fields: the current state has a field of its own, and the states beneath it are only
+ * given an array once a second state is pushed, so objects with one state or none never allocate for it.
+ * Each level of the stack also holds a piece of state data, which lets a {@link state.object.SharedObjectState}
+ * serve many objects while each keeps its own data.
  * @author Nex
  *
  */
@@ -23,6 +39,7 @@ public class GameObject {
 
 	//Attributes
 	protected Vec position;
+	protected Vec previousTickPosition;
 	protected Vec forward, right;
 	protected double width, height;
 	protected boolean visible;
@@ -30,9 +47,46 @@ public class GameObject {
 	protected RectangularShape shape;
 	protected Sprite sprite;
 	protected Color color;
-	protected Stack<ObjectState> stateStack;
+	protected ObjectState currentState;		//Top of the state stack, null if the stack is empty or null was pushed
+	protected Object currentStateData;		//Data the current state keeps on this object, see state.object.SharedObjectState
+	protected ObjectState[] stateStack;		//States beneath the current one, bottom first, null until a second state is pushed
+	protected Object[] stateDataStack;		//Data of the states beneath the current one, alongside stateStack
+	protected int stateDepth;				//Number of states on the stack, counting the current one
 	protected boolean triggerable;
 	protected ArrayList<Trigger> triggers;
+	protected EngineState engineState;		//The engine state this object is in, null if it is in none
+	protected int stateIndex;				//Index of this object in its engine state's object list, -1 if it is in none
+	protected long handle;					//Handle of this object in its engine state, see state.engine.ObjectHandles
+	protected int[] categorySlots;			//Index of this object in each of its engine state's categories, -1 where it is not a member
+	protected ArrayList<String> tags;		//Tags game code has given this object, null until the first is added
+	protected volatile boolean categoriesDirty;	//Has something a category depends on changed since the engine state last checked
+
+	//Update tier attributes, see state.engine.UpdateTiers
+	protected int tickSpan;					//Number of ticks the current update covers
+	protected int pendingTicks;				//Ticks passed since this object last updated
+	protected int updateTier;				//Tier this object was in last tick
+	protected int updatePhase;				//Offsets this object's schedule from others in its tier
+	protected boolean forceUpdate;			//Must this object update next tick, set when added or when its state stack changes
+
+	//Activity attributes
+	protected boolean asleep;				//Is this object skipped by update and by tests against other sleepers
+	protected int stillTicks;				//Number of updates in a row this object has not moved
+	protected double restX, restY;			//Position this object had at its last activity check
+
+	//Hierarchy attributes
+	protected GameObject parent;			//Object this one's position and forward vector are relative to, null if they are world values
+	protected ArrayList<GameObject> children;	//Objects whose parent is this one, null until the first is attached
+	private Vec worldPosition, worldForward;	//Cached world transform, only used when this object has a parent
+	private double worldAngle, localAngle;	//Cached angles of the world and local forward vectors
+	private AffineTransform worldTransform;	//Cached translation and rotation into this object's coordinate system
+	private double cachedX, cachedY, cachedForwardX, cachedForwardY;	//Local values the cache was built from
+	private int transformVersion;			//Goes up each time the cache is rebuilt, so children can tell it changed
+	private int parentVersion;				//Parent's transformVersion when the cache was built
+	private boolean transformDirty;			//Must the cache be rebuilt whatever the local values are
+
+	//Pooling attributes
+	ObjectPool<?> owningPool;					//Pool this object was acquired from, null if it was constructed directly
+	boolean inPool;								//Is this object waiting in its pool
 
 	/**
 	 * Creates a basic GameObject with a position and size
@@ -46,6 +100,7 @@ public class GameObject {
 	public GameObject(double xx, double yy, double w, double h, Vec fwd) {
 		//Set designated attributes
 		position = new Vec(xx, yy);
+		previousTickPosition = new Vec(xx, yy);
 
 		//Set directional vectors
 		forward = fwd;
@@ -55,8 +110,12 @@ public class GameObject {
 		width = w;
 		height = h;
 		
-		//Initiaize state stack
-		stateStack = new Stack<ObjectState>();
+		//Initiaize state stack, the array beneath the current state waits until it is needed
+		currentState = null;
+		currentStateData = null;
+		stateStack = null;
+		stateDataStack = null;
+		stateDepth = 0;
 
 		//Set default attributes
 		visible = false;
@@ -69,11 +128,35 @@ public class GameObject {
 		triggerable = false;
 		
 		solid = true;
+
+		engineState = null;
+		stateIndex = -1;
+		handle = ObjectHandles.NONE;
+		categorySlots = new int[0];
+		tags = null;
+		categoriesDirty = false;
+
+		resetUpdateTier(0);
+
+		asleep = false;
+		stillTicks = 0;
+		restX = xx;
+		restY = yy;
+
+		parent = null;
+		children = null;
+		worldPosition = new Vec(2);
+		worldForward = new Vec(2);
+		worldTransform = new AffineTransform();
+		transformVersion = 0;
+		transformDirty = true;
 	}
 
 	//Accessors
 	/**
-	 * Gets the position vector
+	 * Gets the position vector.
+	 * Changing it in place is allowed. A sleeping object moved this way is woken at the start of the next tick,
+	 * before objects update, see {@link #checkActivity(int)}.
 	 * @return the position vector
 	 */
 	public Vec getPos(){
@@ -86,10 +169,542 @@ public class GameObject {
 	 */
 	public void setPos(Vec v){
 		position = v;
+		wake();
+	}
+
+	/**
+	 * Gets the position this object had at the start of the most recent tick
+	 * @return the position vector from the start of the last tick
+	 */
+	public Vec getPreviousTickPos(){
+		return previousTickPosition;
+	}
+
+	/**
+	 * Gets a position between this object's previous tick position and its current position
+	 * @param alpha How far between the previous tick and the current position, 0 to 1
+	 * @return A new vector holding the interpolated position
+	 */
+	public Vec getInterpolatedPos(double alpha){
+		Vec interpolated = Vec.subtract(position, previousTickPosition);
+		interpolated.scalarMultiply(alpha);
+		interpolated.add(previousTickPosition);
+		return interpolated;
+	}
+
+	/**
+	 * Gets this object's position in the world.
+	 * This is the position vector itself if this object has no parent, otherwise a cached vector which must not be changed.
+	 * @return The world position
+	 */
+	public Vec getWorldPos(){
+		if(parent == null) return position;
+		resolveTransform();
+		return worldPosition;
+	}
+
+	/**
+	 * Gets the direction this object faces in the world.
+	 * This is the forward vector itself if this object has no parent, otherwise a cached vector which must not be changed.
+	 * @return The world forward vector
+	 */
+	public Vec getWorldForward(){
+		if(parent == null) return forward;
+		resolveTransform();
+		return worldForward;
+	}
+
+	/**
+	 * Gets the position in the world this object had at the start of the most recent tick.
+	 * Objects with a parent are placed using their parent's current facing.
+	 * @return The previous tick position if this object has no parent, otherwise a new vector
+	 */
+	public Vec getPreviousTickWorldPos(){
+		if(parent == null) return previousTickPosition;
+		return getPreviousTickWorldPos(new Vec(2));
+	}
+
+	/**
+	 * Gets the position in the world this object had at the start of the most recent tick, without allocating.
+	 * Objects with a parent are placed using their parent's current facing.
+	 * @param out Vector to write the position into
+	 * @return out
+	 */
+	public Vec getPreviousTickWorldPos(Vec out){
+		if(parent == null){
+			out.copy(previousTickPosition);
+			return out;
+		}
+		parent.getPreviousTickWorldPos(out);
+		parent.resolveTransform();
+		//The parent's cached transform holds the cosine and sine of its world angle
+		double cos = parent.worldTransform.getScaleX();
+		double sin = parent.worldTransform.getShearY();
+		double x = previousTickPosition.getComponent(0);
+		double y = previousTickPosition.getComponent(1);
+		out.setComponent(0, out.getComponent(0) + cos * x - sin * y);
+		out.setComponent(1, out.getComponent(1) + sin * x + cos * y);
+		return out;
+	}
+
+	/**
+	 * Gets the translation and rotation from world space into this object's coordinate system,
+	 * rebuilt only when this object or one of its ancestors has moved or turned.
+	 * @return The cached world transform, which must not be changed
+	 */
+	public AffineTransform getWorldTransform(){
+		resolveTransform();
+		return worldTransform;
+	}
+
+	/**
+	 * Gets the object this object's position and forward vector are relative to
+	 * @return The parent, or null if this object's position is in world space
+	 */
+	public GameObject getParent(){
+		return parent;
+	}
+
+	/**
+	 * Gets the objects attached to this one
+	 * @return A read only list of the children
+	 */
+	public List<GameObject> getChildren(){
+		if(children == null) return Collections.emptyList();
+		return Collections.unmodifiableList(children);
+	}
+
+	/**
+	 * Attaches this object to a parent, or detaches it.
+	 * Its position and forward vector are kept as they are, and from now on are read relative to the new parent.
+	 * Parents are not added to or removed from engine states along with their children, each must be added and removed on its own.
+	 * @param newParent The new parent, or null to make this object's position a world position again
+	 * @throws IllegalArgumentException if this object is newParent or one of its ancestors
+	 */
+	public void setParent(GameObject newParent){
+		if(newParent == parent) return;
+		for(GameObject ancestor = newParent; ancestor != null; ancestor = ancestor.parent){
+			if(ancestor == this) throw new IllegalArgumentException("An object can not be its own ancestor.");
+		}
+
+		if(parent != null) parent.children.remove(this);
+		parent = newParent;
+		if(parent != null){
+			if(parent.children == null) parent.children = new ArrayList<GameObject>(2);
+			parent.children.add(this);
+		}
+		transformDirty = true;
+		wake();
+	}
+
+	/**
+	 * Attaches a child to this object, see {@link #setParent(GameObject)}
+	 * @param child The object to attach
+	 */
+	public void addChild(GameObject child){
+		child.setParent(this);
+	}
+
+	/**
+	 * Detaches a child from this object. Does nothing if it is not a child of this object.
+	 * @param child The object to detach
+	 */
+	public void removeChild(GameObject child){
+		if(child.parent == this) child.setParent(null);
+	}
+
+	/**
+	 * Makes this object rebuild its cached world transform the next time it is needed.
+	 * Changes to the position and forward vectors are noticed without this, it is only needed by subclasses
+	 * which add something else to the transform.
+	 */
+	public void markTransformDirty(){
+		transformDirty = true;
+	}
+
+	/**
+	 * Brings the cached world transform up to date, rebuilding it only if this object's local values,
+	 * or any ancestor's transform, changed since it was last built.
+	 * The cache is shared, so only resolve it from one thread at a time.
+	 */
+	private void resolveTransform(){
+		double x = position.getComponent(0);
+		double y = position.getComponent(1);
+		double fx = forward.getComponent(0);
+		double fy = forward.getComponent(1);
+		int currentParentVersion = 0;
+		if(parent != null){
+			parent.resolveTransform();
+			currentParentVersion = parent.transformVersion;
+		}
+		if(!transformDirty && currentParentVersion == parentVersion
+				&& x == cachedX && y == cachedY && fx == cachedForwardX && fy == cachedForwardY){
+			return;
+		}
+
+		cachedX = x;
+		cachedY = y;
+		cachedForwardX = fx;
+		cachedForwardY = fy;
+		parentVersion = currentParentVersion;
+		transformDirty = false;
+		transformVersion++;
+
+		localAngle = Math.atan2(fy, fx);
+		if(parent == null){
+			worldPosition.setComponent(0, x);
+			worldPosition.setComponent(1, y);
+			worldForward.setComponent(0, fx);
+			worldForward.setComponent(1, fy);
+			worldAngle = localAngle;
+		}
+		else{
+			double cos = Math.cos(parent.worldAngle);
+			double sin = Math.sin(parent.worldAngle);
+			worldPosition.setComponent(0, parent.worldPosition.getComponent(0) + cos * x - sin * y);
+			worldPosition.setComponent(1, parent.worldPosition.getComponent(1) + sin * x + cos * y);
+			worldForward.setComponent(0, cos * fx - sin * fy);
+			worldForward.setComponent(1, sin * fx + cos * fy);
+			worldAngle = parent.worldAngle + localAngle;
+		}
+		worldTransform.setToTranslation(worldPosition.getComponent(0), worldPosition.getComponent(1));
+		worldTransform.rotate(worldAngle);
+	}
+
+	/**
+	 * Gets the engine state this object has been added to
+	 * @return The engine state holding this object, or null if it is in none
+	 */
+	public EngineState getEngineState(){
+		return engineState;
+	}
+
+	/**
+	 * Sets the engine state this object is in.
+	 * Called by {@link EngineState} when this object is added or removed, game code should not need to call it.
+	 * @param state The engine state now holding this object, or null
+	 */
+	public void setEngineState(EngineState state){
+		engineState = state;
+	}
+
+	/**
+	 * Gets this object's index in its engine state's object list
+	 * @return The index, or -1 if this object is in no engine state
+	 */
+	public int getStateIndex(){
+		return stateIndex;
+	}
+
+	/**
+	 * Sets this object's index in its engine state's object list.
+	 * Called by {@link EngineState} as objects are added, removed and moved, game code should not need to call it.
+	 * @param index The new index, or -1
+	 */
+	public void setStateIndex(int index){
+		stateIndex = index;
+	}
+
+	/**
+	 * Gets this object's handle in its engine state.
+	 * Unlike a reference, a handle does not keep this object in memory once it is removed,
+	 * and stops resolving through {@link EngineState#getObj(long)} as soon as it is.
+	 * @return The handle, or {@link ObjectHandles#NONE} if this object is in no engine state
+	 */
+	public long getHandle(){
+		return handle;
+	}
+
+	/**
+	 * Sets this object's handle in its engine state.
+	 * Called by {@link EngineState} when this object is added or removed, game code should not need to call it.
+	 * @param handle The new handle, or {@link ObjectHandles#NONE}
+	 */
+	public void setHandle(long handle){
+		this.handle = handle;
+	}
+
+	/**
+	 * Gets this object's slot in one of its engine state's categories
+	 * @param category Index of the category
+	 * @return The slot, or -1 if this object is not a member
+	 */
+	public int getCategorySlot(int category){
+		return category < categorySlots.length ? categorySlots[category] : -1;
+	}
+
+	/**
+	 * Sets this object's slot in one of its engine state's categories.
+	 * Called by {@link state.engine.ObjectCategory}, game code should not need to call it.
+	 * @param category Index of the category
+	 * @param slot The new slot, or -1
+	 */
+	public void setCategorySlot(int category, int slot){
+		if(category >= categorySlots.length){
+			if(slot < 0) return;
+			int oldLength = categorySlots.length;
+			categorySlots = Arrays.copyOf(categorySlots, Math.max(category + 1, oldLength * 2));
+			Arrays.fill(categorySlots, oldLength, categorySlots.length, -1);
+		}
+		categorySlots[category] = slot;
+	}
+
+	/**
+	 * Gets whether something an engine state category depends on has changed since the state last checked
+	 * @return True if this object's categories need checking
+	 */
+	public boolean isCategoriesDirty(){
+		return categoriesDirty;
+	}
+
+	/**
+	 * Sets whether this object's categories need checking
+	 * Called by {@link EngineState}, game code should not need to call it.
+	 * @param dirty True if they need checking
+	 */
+	public void setCategoriesDirty(boolean dirty){
+		categoriesDirty = dirty;
+	}
+
+	/**
+	 * Tells this object's engine state to check which categories it belongs in
+	 */
+	protected void categoriesChanged(){
+		if(engineState != null && !categoriesDirty){
+			categoriesDirty = true;
+			engineState.categoriesChanged(this);
+		}
+	}
+
+	/**
+	 * Gives this object a tag, see {@link EngineState#getTagged(String)}
+	 * @param tag The tag to add
+	 */
+	public void addTag(String tag){
+		if(tags == null) tags = new ArrayList<String>(2);
+		if(!tags.contains(tag)){
+			tags.add(tag);
+			categoriesChanged();
+		}
+	}
+
+	/**
+	 * Takes a tag away from this object
+	 * @param tag The tag to remove
+	 */
+	public void removeTag(String tag){
+		if(tags != null && tags.remove(tag)){
+			categoriesChanged();
+		}
+	}
+
+	/**
+	 * Gets whether this object has a tag
+	 * @param tag The tag to check
+	 * @return True if this object has been given the tag
+	 */
+	public boolean hasTag(String tag){
+		return tags != null && tags.contains(tag);
+	}
+
+	/**
+	 * Gets the number of ticks the current update covers.
+	 * This is 1 unless the engine state uses {@link state.engine.UpdateTiers}, in which case an object in a far tier
+	 * is updated less often and each update covers every tick since the last.
+	 * States which move or count time should scale by this, multiplied by the engine's tick delta for seconds.
+	 * @return The number of ticks passed since this object last updated
+	 */
+	public int getTickSpan(){
+		return tickSpan;
+	}
+
+	/**
+	 * Gets the update tier this object was in on the last tick
+	 * @return The update tier, 0 when not using update tiers
+	 */
+	public int getUpdateTier(){
+		return updateTier;
+	}
+
+	/**
+	 * Clears this object's update tier schedule, so it updates on the next tick whatever its tier.
+	 * Called by {@link EngineState} when this object is added.
+	 * @param phase Offsets this object's schedule from other objects in the same tier
+	 */
+	public void resetUpdateTier(int phase){
+		tickSpan = 1;
+		pendingTicks = 0;
+		updateTier = 0;
+		updatePhase = phase;
+		forceUpdate = true;
+	}
+
+	/**
+	 * Counts a tick towards this object's next update and decides whether to update it this tick.
+	 * An object updates when its tier's schedule comes around, when it moves into a nearer tier,
+	 * or when it has just been added or its state stack has changed since its last update.
+	 * Called by {@link EngineState} before updating, game code should not need to call it.
+	 * @param tier The tier this object is in this tick
+	 * @param interval How many ticks pass between updates in that tier
+	 * @param tick The number of ticks the engine state has run
+	 * @return True if this object should update this tick
+	 */
+	public boolean isUpdateDue(int tier, int interval, long tick){
+		pendingTicks++;
+		boolean due = (tick + updatePhase) % interval == 0 || tier < updateTier || forceUpdate;
+		updateTier = tier;
+		if(due){
+			tickSpan = pendingTicks;
+			pendingTicks = 0;
+			forceUpdate = false;
+		}
+		return due;
+	}
+
+	/**
+	 * Stands in for update on a tick this object is not updated, so it draws as standing still
+	 */
+	public void skipUpdate(){
+		previousTickPosition.copy(position);
+	}
+
+	/**
+	 * Gets whether this object is asleep.
+	 * Sleeping objects are not updated, and are not tested for collisions against other sleeping objects.
+	 * @return True if this object is asleep
+	 */
+	public boolean isAsleep(){
+		return asleep;
+	}
+
+	/**
+	 * Wakes this object, so it updates next tick and must stay still a while before it can sleep again.
+	 * Called when this object is moved through setPos or {@link MovableGameObject#move(Vec)}, when its state changes,
+	 * and when an awake object touches it. An object whose position vector is changed directly is woken
+	 * at the start of the next tick, call this to wake it straight away.
+	 */
+	public void wake(){
+		if(asleep) forceUpdate = true;
+		asleep = false;
+		stillTicks = 0;
+		//Children are carried along when this object moves
+		if(children != null){
+			for(int i = 0; i < children.size(); i++){
+				children.get(i).wake();
+			}
+		}
+	}
+
+	/**
+	 * Gets whether this object may fall asleep once it stops moving.
+	 * Objects with a sprite never sleep, since their animation advances in update.
+	 * Otherwise an object may sleep if it has no state, or its current state allows sleep.
+	 * An object with a parent may only sleep while its parent is asleep.
+	 * @return Whether this object can sleep
+	 */
+	public boolean canSleep(){
+		if(sprite != null) return false;
+		if(parent != null && !parent.isAsleep()) return false;
+		ObjectState current = getCurrentState();
+		return current == null || current.allowsSleep();
+	}
+
+	/**
+	 * Counts an update towards this object falling asleep, or wakes it if it is asleep and has moved.
+	 * The object falls asleep once it has updated a number of times in a row without moving, if it can sleep.
+	 * A sleeping object whose position has changed since it fell asleep, such as through its position vector
+	 * being changed in place, wakes up.
+	 * Called by {@link EngineState} after updating awake objects, and before updating for sleeping ones.
+	 * Game code should not need to call it.
+	 * @param threshold Number of still updates before falling asleep
+	 */
+	public void checkActivity(int threshold){
+		double x = position.getComponent(0);
+		double y = position.getComponent(1);
+		if(x != restX || y != restY){
+			restX = x;
+			restY = y;
+			stillTicks = 0;
+			if(asleep) wake();
+		}
+		else if(!asleep && ++stillTicks >= threshold && canSleep()){
+			asleep = true;
+		}
+	}
+
+	/**
+	 * Gets whether this object was acquired from an {@link ObjectPool}, and so returns to it when removed
+	 * @return True if this object belongs to a pool
+	 */
+	public boolean isPooled(){
+		return owningPool != null;
+	}
+
+	/**
+	 * Returns this object to the pool it was acquired from. Does nothing if it was not acquired from a pool.
+	 * Called by {@link EngineState} once this object has been removed, game code should not keep
+	 * any reference to a pooled object after removing it.
+	 */
+	public void recycle(){
+		if(owningPool != null) owningPool.recycle(this);
+	}
+
+	/**
+	 * Returns this object to the defaults given by the constructor, keeping its position, size and forward vector.
+	 * Every state is popped, so each one exits, and this object is detached from its parent and children.
+	 * Subclasses holding more data should override this and call super.reset().
+	 */
+	public void reset(){
+		while(stateDepth > 0){
+			popState();
+		}
+
+		setParent(null);
+		while(children != null && !children.isEmpty()){
+			children.get(children.size() - 1).setParent(null);
+		}
+
+		setVisible(false);
+		shape = null;
+		color = Color.black;
+		sprite = null;
+		setTriggerable(false);
+		triggers = null;
+		solid = true;
+		if(tags != null && !tags.isEmpty()){
+			tags.clear();
+			categoriesChanged();
+		}
+
+		previousTickPosition.copy(position);
+		resetUpdateTier(0);
+		asleep = false;
+		stillTicks = 0;
+		restX = position.getComponent(0);
+		restY = position.getComponent(1);
+	}
+
+	/**
+	 * Moves, resizes and turns this object without allocating, then resets it. See {@link #reset()}.
+	 * @param xx X Position in worldspace
+	 * @param yy Y Position in worldspace
+	 * @param w object width
+	 * @param h object height
+	 * @param fwd Forward vector, which direction is this gameobject facing.
+	 */
+	public void reset(double xx, double yy, double w, double h, Vec fwd){
+		position.setComponent(0, xx);
+		position.setComponent(1, yy);
+		width = w;
+		height = h;
+		forward = fwd;
+		right.copy(forward);
+		right.rotate(Math.PI/2);
+		reset();
 	}
 
 	/**
-	 * Gets the X component of the position vector
+	 * Gets the X component of the position vector, which is local if this object has a parent
 	 * @return
 	 */
 	public double getXPos(){
@@ -97,7 +712,7 @@ public class GameObject {
 	}
 
 	/**
-	 * Gets the Y component of the position {@link mathematics.Vec}
+	 * Gets the Y component of the position {@link mathematics.Vec}, which is local if this object has a parent
 	 * @return the Y component of position {@link mathematics.Vec}
 	 */
 	public double getYPos(){
@@ -183,13 +798,31 @@ public class GameObject {
 	 * @param newState State to attach to object
 	 */
 	public void pushState(ObjectState newState){
-		//Push state onto stack
-		stateStack.push(newState);
+		//Push state onto stack, moving the current state beneath it
+		if(stateDepth > 0){
+			int below = stateDepth - 1;
+			if(stateStack == null){
+				stateStack = new ObjectState[2];
+				stateDataStack = new Object[2];
+			}
+			else if(below == stateStack.length){
+				stateStack = Arrays.copyOf(stateStack, below * 2);
+				stateDataStack = Arrays.copyOf(stateDataStack, below * 2);
+			}
+			stateStack[below] = currentState;
+			stateDataStack[below] = currentStateData;
+		}
+		currentState = newState;
+		currentStateData = null;
+		stateDepth++;
+		forceUpdate = true;
+		wake();
+		categoriesChanged();
 
 		//If not going into a null state
 		if(newState != null){
 			newState.setAttachedGameObject(this);
-			newState.enter();
+			newState.enter(this);
 		}
 	}
 	
@@ -198,17 +831,29 @@ public class GameObject {
 	 * If the current state isn't null, it's exit method will be called.
 	 */
 	public void popState(){
-		ObjectState poppedState;
-		try{
-			poppedState = stateStack.pop();
+		if(stateDepth == 0){
+			return;
 		}
-		catch(EmptyStackException e){
-			poppedState = null;
-			System.out.println("No state to pop off of object.");
+		ObjectState poppedState = currentState;
+		Object poppedData = currentStateData;
+		stateDepth--;
+		if(stateDepth > 0){
+			int below = stateDepth - 1;
+			currentState = stateStack[below];
+			currentStateData = stateDataStack[below];
+			stateStack[below] = null;
+			stateDataStack[below] = null;
 		}
+		else{
+			currentState = null;
+			currentStateData = null;
+		}
+		forceUpdate = true;
+		wake();
+		categoriesChanged();
 		
 		if(poppedState != null){
-			poppedState.exit();
+			poppedState.exit(this, poppedData);
 		}
 	}
 
@@ -217,16 +862,46 @@ public class GameObject {
 	 * @return The state on top of this gameObject's stateStack
 	 */
 	public ObjectState getCurrentState(){
-		ObjectState returnState;
-		try{
-			returnState = stateStack.peek();
-		}
-		catch(EmptyStackException e){
-			returnState = null;
-			System.out.println("No state to get from object.");
-		}
-		
-		return returnState;
+		return currentState;
+	}
+
+	/**
+	 * Gets the number of states on this gameObject's state stack, including any null states
+	 * @return The stack depth
+	 */
+	public int getStateDepth(){
+		return stateDepth;
+	}
+
+	/**
+	 * Gets the data the current state keeps on this gameObject.
+	 * Each state on the stack has its own data, which starts out null and is dropped when the state is popped.
+	 * @return The current state's data, or null if it has none
+	 */
+	public Object getStateData(){
+		return currentStateData;
+	}
+
+	/**
+	 * Sets the data the current state keeps on this gameObject, see {@link state.object.SharedObjectState}
+	 * @param data The current state's data
+	 */
+	public void setStateData(Object data){
+		if(stateDepth == 0) throw new IllegalStateException("A gameObject with no state can not hold state data.");
+		currentStateData = data;
+	}
+
+	/**
+	 * Gets whether this gameObject may be updated on a worker thread at the same time as other objects.
+	 * Objects with a sprite are never parallel safe, sprites are shared between objects and advance a shared clock.
+	 * Objects with a parent are never parallel safe either, resolving their world transform rebuilds their ancestors'
+	 * cached transforms, which siblings on other threads would rebuild at the same time.
+	 * Otherwise an object is parallel safe if it has no state, or its current state is parallel safe.
+	 * @return Whether this gameObject is safe to update in parallel
+	 */
+	public boolean isParallelSafe(){
+		if(sprite != null || parent != null) return false;
+		return currentState == null || currentState.isParallelSafe();
 	}
 
 	/**
@@ -242,7 +917,9 @@ public class GameObject {
 	 * @param isVisible is the object visible
 	 */
 	public void setVisible(boolean isVisible){
+		if(visible == isVisible) return;
 		visible = isVisible;
+		categoriesChanged();
 	}
 
 	/**
@@ -287,6 +964,14 @@ public class GameObject {
 		}
 	}
 
+	/**
+	 * Gets the shape of the gameObject
+	 * @return The shape drawn when this gameObject has no sprite
+	 */
+	public RectangularShape getShape(){
+		return shape;
+	}
+
 	/**
 	 * Gets the sprite of this gameObject
 	 * @return The sprite currently attached to this game object
@@ -303,6 +988,14 @@ public class GameObject {
 		sprite = newSprite;
 	}
 
+	/**
+	 * Gets the color of the GameObject
+	 * @return The color the shape is filled with
+	 */
+	public Color getColor(){
+		return color;
+	}
+
 	/**
 	 * Sets the color of the GameObject
 	 * @param newColor The new color
@@ -337,11 +1030,13 @@ public class GameObject {
 	 * @param isTriggerable Whether or not this object should be triggerable
 	 */
 	public void setTriggerable(boolean isTriggerable){
+		boolean changed = triggerable != isTriggerable;
 		triggerable = isTriggerable;
 		//If this object is triggerable, initialize its list of triggers
 		if(triggerable){
 			triggers = new ArrayList<Trigger>();
 		}
+		if(changed) categoriesChanged();
 	}
 
 	/**
@@ -371,14 +1066,32 @@ public class GameObject {
 
 	/**
 	 * Updates the current state of the gameObject if this object is running
+	 * Records the position at the start of the tick so drawing can interpolate towards the new position.
 	 */
 	public void update(){
+		beginUpdate();
 		if(isRunning()){
-			getCurrentState().update();
+			currentState.update(this);
 		}
+		finishUpdate();
+	}
+
+	/**
+	 * The part of update which runs before the current state updates.
+	 * Only call this when updating the state directly, see {@link ObjectState#updateAll(java.util.List)}.
+	 */
+	public void beginUpdate(){
+		previousTickPosition.copy(position);
+	}
+
+	/**
+	 * The part of update which runs after the current state updates, advancing the sprite or sizing the shape.
+	 * Only call this when updating the state directly, see {@link ObjectState#updateAll(java.util.List)}.
+	 */
+	public void finishUpdate(){
 		if(isVisible()){
 			if(sprite != null){
-				sprite.update();
+				sprite.update(getSpriteClock());
 			}
 			else if(shape != null){
 				updateShape();
@@ -386,6 +1099,17 @@ public class GameObject {
 		}
 	}
 
+	/**
+	 * Gets the sprite manager of the engine this object is in
+	 * @return The sprite manager which advances this object's sprite
+	 */
+	private SpriteManager getSpriteClock(){
+		Engine engine = engineState != null ? engineState.getEngine() : null;
+		//Objects updated outside of any engine state fall back to the most recent engine
+		if(engine == null) engine = Engine.currentInstance;
+		return (SpriteManager)engine.getManager(Engine.Managers.SPRITEMANAGER);
+	}
+
 	/**
 	 * Draws the image of this gameObject if the object is visible
 	 * IF there is no image, but the object is visible, this will 
@@ -394,16 +1118,23 @@ public class GameObject {
 	 * If the gameobject is visible AND it is running, the current state's drawEffects method will also be called.
 	 * @param g2d Graphics object to draw with
 	 */
-	public void draw(Graphics2D g2d){		
+	public void draw(Graphics2D g2d){
+		draw(g2d, 1.0);
+	}
 
-		//Save affine transformation
-		AffineTransform savedState = new AffineTransform(g2d.getTransform());
+	/**
+	 * Draws this gameObject at a position interpolated between its previous tick position and its current position.
+	 * See {@link #draw(Graphics2D)}.
+	 * @param g2d Graphics object to draw with
+	 * @param alpha How far between the previous tick and the current position to draw, 0 to 1
+	 */
+	public void draw(Graphics2D g2d, double alpha){		
 
-		//Construct the local system
-		AffineTransform localCoordinateSystem = constructLocalSystem(g2d.getTransform());
+		//Save affine transformation
+		AffineTransform savedState = g2d.getTransform();
 
-		//Set the affine transformation
-		g2d.setTransform(localCoordinateSystem);
+		//Move into the local system
+		applyLocalSystem(g2d, alpha);
 
 		if(visible){
 			
@@ -423,7 +1154,7 @@ public class GameObject {
 			//If this obj is running
 			if(isRunning()){
 				//Draw it's state
-				getCurrentState().drawEffects(g2d);
+				currentState.drawEffects(this, g2d);
 			}
 		}
 
@@ -432,26 +1163,45 @@ public class GameObject {
 	}
 
 	/**
-	 * Uses this objects position and forward vector
-	 * To construct an affine transformation that, if applied, will set the current
-	 * coordinate system to be centered on this gameObject and rotated in the direction of this gameObject's
-	 * forward vector, while still translated to the position of the camera
-	 * @param currentSystem An affineTransformation representing the current transformation stack on the renderer
-	 * @return An affine transform representing this gameObject's current coordinate system.
+	 * Applies this object's position and forward vector to the renderer, so that the
+	 * current coordinate system is centered on this gameObject and rotated in the direction of this gameObject's
+	 * forward vector, while still translated to the position of the camera.
+	 * An object which has not moved this tick, and whose ancestors have not either, reuses its cached world transform.
+	 * Otherwise each ancestor's translation and rotation is applied in turn, interpolated between the previous tick and now.
+	 * @param g2d Graphics object whose transform is changed
+	 * @param alpha How far between the previous tick position and the current position to translate to
 	 */
-	private AffineTransform constructLocalSystem(AffineTransform currentSystem){
-		//Construct affine transformation
-		AffineTransform transform = currentSystem;
+	private void applyLocalSystem(Graphics2D g2d, double alpha){
+		resolveTransform();
+		boolean still = true;
+		for(GameObject obj = this; obj != null && still; obj = obj.parent){
+			still = obj.position.getComponent(0) == obj.previousTickPosition.getComponent(0)
+					&& obj.position.getComponent(1) == obj.previousTickPosition.getComponent(1);
+		}
+		if(still){
+			g2d.transform(worldTransform);
+		}
+		else{
+			applyInterpolatedSystem(g2d, alpha);
+		}
+	}
 
-		//translation the affine transformation to the (top left) position of where this gameObject should be
-		transform.translate(position.getComponent(0), position.getComponent(1));
+	/**
+	 * Applies the interpolated translation and the rotation of each ancestor and then this object.
+	 * Expects the transform cache to be resolved.
+	 * @param g2d Graphics object whose transform is changed
+	 * @param alpha How far between the previous tick position and the current position to translate to
+	 */
+	private void applyInterpolatedSystem(Graphics2D g2d, double alpha){
+		if(parent != null) parent.applyInterpolatedSystem(g2d, alpha);
 
-		//Get angle of rotation
-		double angle = forward.getAngle();
-		//Rotate the affine transformation by the angle that this gameObject is rotated
-		transform.rotate(angle);
-		
-		return transform;
+		//Interpolate between the previous tick position and the current position
+		double x = previousTickPosition.getComponent(0) + (position.getComponent(0) - previousTickPosition.getComponent(0)) * alpha;
+		double y = previousTickPosition.getComponent(1) + (position.getComponent(1) - previousTickPosition.getComponent(1)) * alpha;
+
+		//translate to the position of where this gameObject should be, then rotate by the angle this gameObject is rotated
+		g2d.translate(x, y);
+		g2d.rotate(localAngle);
 	}
 
 	/**
@@ -470,17 +1220,19 @@ public class GameObject {
 
 
 	/**
-	 * Checks if the bounding box of this obj is intersecting the bounding box of another obj
+	 * Checks if the bounding box of this obj is intersecting the bounding box of another obj, using their world positions
 	 * @param obj GameObject to check with
 	 * @return Whether this gameobject is intersecting with obj
 	 */
 	public boolean isColliding(GameObject obj){
+		Vec pos = getWorldPos();
+		Vec objPos = obj.getWorldPos();
 
 		//If the left side of this is to the left  right side of obj and the right side of this is to the right of the left side of obj
-		if(position.getComponent(0) < obj.position.getComponent(0) + obj.width && this.position.getComponent(0) + this.width > obj.position.getComponent(0)){
+		if(pos.getComponent(0) < objPos.getComponent(0) + obj.width && pos.getComponent(0) + this.width > objPos.getComponent(0)){
 
 			//IF the top of this is higher than the bottom of obj and the bottom of this is further down than the top of obj
-			if(position.getComponent(1) < obj.position.getComponent(1) + obj.height && this.position.getComponent(1) + this.height > obj.position.getComponent(1)){
+			if(pos.getComponent(1) < objPos.getComponent(1) + obj.height && pos.getComponent(1) + this.height > objPos.getComponent(1)){
 				return true;
 			}	
 		}
@@ -494,11 +1246,12 @@ public class GameObject {
 	 * @return boolean indicating whether the point lies within this gameobject
 	 */
 	public boolean contains(double xx, double yy){
+		Vec pos = getWorldPos();
 		return 
-				xx < position.getComponent(0) + width && 
-				xx > position.getComponent(0) && 
-				yy < position.getComponent(1) + height && 
-				yy > position.getComponent(1); 
+				xx < pos.getComponent(0) + width && 
+				xx > pos.getComponent(0) && 
+				yy < pos.getComponent(1) + height && 
+				yy > pos.getComponent(1); 
 	}
 
 }
@@ -29,13 +29,14 @@ public class MovableGameObject extends GameObject {
 
 	/**
 	 * Updates previousPosition and increments position by the movementVector
-	 * Also makes call to updateShape
+	 * Also makes call to updateShape, and wakes this object
 	 * @param movementVec The vector to increment position by
 	 */
 	public void move(Vec movementVec){
 		previousPosition.copy(position);
 		position.add(movementVec);
 		updateShape();
+		wake();
 	}
 
 	/**
@@ -47,6 +48,15 @@ public class MovableGameObject extends GameObject {
 		updateShape();
 	}
 	
+	/**
+	 * Resets this object as {@link GameObject#reset()} does, and sets its previous position to its position
+	 */
+	@Override
+	public void reset(){
+		super.reset();
+		previousPosition.copy(position);
+	}
+	
 	/**
 	 * Sets the previousosition to the currentPosition
 	 */
@@ -0,0 +1,144 @@
+package objects;
+
+import java.util.ArrayDeque;
+
+/**
+ * Keeps gameObjects of one type which have been removed from the game, so they can be handed out again
+ * instead of constructing new ones.
+ *
+ * Objects are taken with {@link #acquire()} and come back on their own once removed from an
+ * {@link state.engine.EngineState}. A pool holds at most its capacity, objects returned to a full pool are dropped
+ * for the garbage collector. Acquiring from an empty pool constructs a new object with the pool's factory.
+ * Safe to use from several threads, so objects may be acquired while updating in parallel.
+ * @author Nex
+ *
+ * @param <T> The type of object pooled
+ */
+public class ObjectPool<T extends GameObject> {
+
+	/**
+	 * Constructs new objects for a pool when it is empty
+	 * @param <T> The type of object constructed
+	 */
+	public interface Factory<T extends GameObject> {
+		/**
+		 * Constructs a new object
+		 * @return The new object
+		 */
+		T create();
+	}
+
+	//Attributes
+	private final Factory<T> factory;
+	private final int capacity;
+	private final ArrayDeque<T> available;
+	private long hits, misses, recycled, dropped;
+
+	/**
+	 * Constructs an empty pool
+	 * @param capacity The most objects the pool will hold
+	 * @param factory Constructs objects when the pool is empty
+	 */
+	public ObjectPool(int capacity, Factory<T> factory) {
+		this.factory = factory;
+		this.capacity = Math.max(0, capacity);
+		available = new ArrayDeque<T>(Math.min(this.capacity, 1024));
+	}
+
+	//Accessors
+	/**
+	 * Gets the most objects this pool will hold
+	 * @return The capacity
+	 */
+	public int getCapacity(){
+		return capacity;
+	}
+
+	/**
+	 * Gets the number of objects waiting in this pool
+	 * @return The number of available objects
+	 */
+	public synchronized int getAvailable(){
+		return available.size();
+	}
+
+	/**
+	 * Gets the number of acquires served from the pool
+	 * @return The hit count
+	 */
+	public synchronized long getHits(){
+		return hits;
+	}
+
+	/**
+	 * Gets the number of acquires which had to construct a new object
+	 * @return The miss count
+	 */
+	public synchronized long getMisses(){
+		return misses;
+	}
+
+	/**
+	 * Gets the number of objects returned to the pool
+	 * @return The recycle count
+	 */
+	public synchronized long getRecycled(){
+		return recycled;
+	}
+
+	/**
+	 * Gets the number of objects dropped because the pool was full
+	 * @return The drop count
+	 */
+	public synchronized long getDropped(){
+		return dropped;
+	}
+
+	//Methods
+	/**
+	 * Takes an object from the pool, or constructs one if the pool is empty.
+	 * Pooled objects have been reset, see {@link GameObject#reset()}.
+	 * @return An object ready to be set up and added to an engine state
+	 */
+	public T acquire(){
+		T obj;
+		synchronized(this){
+			obj = available.pollLast();
+			if(obj != null) hits++;
+			else misses++;
+		}
+		if(obj == null){
+			obj = factory.create();
+		}
+		obj.owningPool = this;
+		obj.inPool = false;
+		return obj;
+	}
+
+	/**
+	 * Resets an object and returns it to the pool, or drops it if the pool is full.
+	 * Called when an acquired object is removed from an engine state, game code should not need to call it.
+	 * @param obj An object acquired from this pool
+	 */
+	@SuppressWarnings("unchecked")
+	void recycle(GameObject obj){
+		if(obj.inPool) return;
+		obj.inPool = true;
+		obj.reset();
+		synchronized(this){
+			if(available.size() < capacity){
+				available.addLast((T)obj);
+				recycled++;
+			}
+			else{
+				dropped++;
+			}
+		}
+	}
+
+	@Override
+	public synchronized String toString(){
+		return String.format("%d/%d available, %d hits, %d misses, %d recycled, %d dropped", available.size(), capacity, hits, misses, recycled, dropped);
+	}
+
+}
@@ -0,0 +1,486 @@
+package objects;
+
+import java.awt.Color;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import mathematics.Vec;
+
+/**
+ * Holds very large numbers of simple moving bodies outside the Java heap, in a single direct buffer.
+ *
+ * Each body is one fixed size record: position, position at the start of the tick, size, velocity and flags.
+ * Records are packed densely one after another, so the garbage collector sees one small buffer object however many
+ * bodies there are, and copying every body, for a snapshot or the renderer, is a single bulk copy.
+ * Bodies are referred to by int handles like {@link EntityStore} entities, and use the same flags.
+ * As there, a destroyed body's handle stops being alive even once a later body reuses its slot,
+ * until the slot's generation wraps after 127 reuses, so do not keep handles after destroying them.
+ *
+ * Each tick every body's velocity, in world units per tick, is added to its position.
+ * Add a store to an {@link state.engine.EngineState} to update it alongside the state's objects:
+ * visible bodies are drawn in the store's color, and solid movable bodies are stopped by solid gameObjects and static geometry.
+ * Bodies do not collide with each other.
+ * @author Nex
+ *
+ */
+public class OffHeapBodyStore {
+
+	//Record layout, in bytes from the start of a record
+	private static final int X = 0, Y = 8;
+	private static final int PREVIOUS_X = 16, PREVIOUS_Y = 24;
+	private static final int WIDTH = 32, HEIGHT = 40;
+	private static final int VELOCITY_X = 48, VELOCITY_Y = 56;
+	private static final int FLAGS = 64;
+	private static final int RECORD_SIZE = 72;			//Padded so every record starts 8 byte aligned
+
+	//Immutable Attributes
+	public static final int INVALID_HANDLE = -1;
+	public static final int MAX_BODIES = 1 << 24;		//Most bodies one store can hold at once
+	private static final int SLOT_MASK = MAX_BODIES - 1;
+	private static final int GENERATION_MASK = 0x7F;	//Generations stay below the sign bit, so no handle is negative
+
+	//Attributes
+	private ByteBuffer records;							//Direct, native order buffer holding every record
+	private int capacity;
+	private int count;
+	private Color color;								//Color every visible body is filled with
+
+	private int[] handleOf;								//Handle of the body at each dense index
+	private int[] denseOf;								//Dense index of the body in each slot, -1 if the slot is free
+	private int[] generations;							//Current generation of each slot, starting at 1
+	private int[] freeSlots;							//Slots of destroyed bodies, reused before new ones are made
+	private int numFreeSlots;
+	private int numSlots;
+
+	/**
+	 * Constructs an empty store
+	 */
+	public OffHeapBodyStore() {
+		this(1024);
+	}
+
+	/**
+	 * Constructs an empty store with room for a number of bodies before it needs to grow
+	 * @param capacity Initial capacity
+	 */
+	public OffHeapBodyStore(int capacity) {
+		this.capacity = Math.max(1, capacity);
+		records = allocate(this.capacity);
+		count = 0;
+		color = Color.black;
+
+		handleOf = new int[this.capacity];
+		denseOf = new int[this.capacity];
+		generations = new int[this.capacity];
+		freeSlots = new int[this.capacity];
+		numFreeSlots = 0;
+		numSlots = 0;
+	}
+
+	private static ByteBuffer allocate(int capacity){
+		return ByteBuffer.allocateDirect(capacity * RECORD_SIZE).order(ByteOrder.nativeOrder());
+	}
+
+	//Body lifetime
+	/**
+	 * Creates a body
+	 * @param xx X position
+	 * @param yy Y position
+	 * @param w Width
+	 * @param h Height
+	 * @param velocity Velocity in world units per tick, copied
+	 * @param bodyFlags Any of {@link EntityStore#VISIBLE}, {@link EntityStore#SOLID} and {@link EntityStore#MOVABLE}
+	 * @return The new body's handle, which may reuse the slot of a destroyed body but never equals its handle
+	 * @throws IllegalStateException if the store already holds {@link #MAX_BODIES} bodies
+	 */
+	public int create(double xx, double yy, double w, double h, Vec velocity, int bodyFlags){
+		if(count == capacity) grow(capacity * 2);
+
+		int slot;
+		if(numFreeSlots > 0){
+			slot = freeSlots[--numFreeSlots];
+		}
+		else{
+			if(numSlots == MAX_BODIES) throw new IllegalStateException("A body store can not hold more than " + MAX_BODIES + " bodies.");
+			if(numSlots == denseOf.length){
+				denseOf = Arrays.copyOf(denseOf, numSlots * 2);
+				generations = Arrays.copyOf(generations, numSlots * 2);
+			}
+			slot = numSlots++;
+			generations[slot] = 1;
+		}
+		int handle = (generations[slot] << 24) | slot;
+
+		int index = count++;
+		int base = index * RECORD_SIZE;
+		records.putDouble(base + X, xx);
+		records.putDouble(base + Y, yy);
+		records.putDouble(base + PREVIOUS_X, xx);
+		records.putDouble(base + PREVIOUS_Y, yy);
+		records.putDouble(base + WIDTH, w);
+		records.putDouble(base + HEIGHT, h);
+		records.putDouble(base + VELOCITY_X, velocity.getComponent(0));
+		records.putDouble(base + VELOCITY_Y, velocity.getComponent(1));
+		records.putInt(base + FLAGS, bodyFlags);
+		handleOf[index] = handle;
+		denseOf[slot] = index;
+		return handle;
+	}
+
+	/**
+	 * Destroys a body. Its slot may be given to a later body, but its handle stops being alive.
+	 * Do not keep the handle afterwards, see the class description for when generations wrap.
+	 * @param handle The body to destroy
+	 */
+	public void destroy(int handle){
+		if(!isAlive(handle)) return;
+
+		//Move the last record into the hole so the records stay packed
+		int slot = handle & SLOT_MASK;
+		int hole = denseOf[slot];
+		int last = --count;
+		if(hole != last){
+			ByteBuffer source = records.duplicate();
+			source.limit((last + 1) * RECORD_SIZE).position(last * RECORD_SIZE);
+			ByteBuffer target = records.duplicate();
+			target.position(hole * RECORD_SIZE);
+			target.put(source);
+			handleOf[hole] = handleOf[last];
+			denseOf[handleOf[hole] & SLOT_MASK] = hole;
+		}
+		freeSlot(slot);
+	}
+
+	/**
+	 * Frees a slot and bumps its generation, so handles to it stop being alive
+	 * @param slot The slot to free
+	 */
+	private void freeSlot(int slot){
+		denseOf[slot] = -1;
+		//Skip the generation 0, so every handle stays distinct from ones made before the wrap started
+		generations[slot] = (generations[slot] + 1) & GENERATION_MASK;
+		if(generations[slot] == 0) generations[slot] = 1;
+
+		if(numFreeSlots == freeSlots.length){
+			freeSlots = Arrays.copyOf(freeSlots, numFreeSlots * 2);
+		}
+		freeSlots[numFreeSlots++] = slot;
+	}
+
+	/**
+	 * Destroys every body. Every handle stops being alive.
+	 */
+	public void clear(){
+		for(int i = 0; i < count; i++){
+			//A copy made by copyTo holds no living handles
+			if(isAlive(handleOf[i])) freeSlot(handleOf[i] & SLOT_MASK);
+		}
+		count = 0;
+	}
+
+	/**
+	 * Gets whether a handle refers to a living body
+	 * @param handle The handle to check
+	 * @return True if the body exists, false if it has been destroyed, even if its slot now holds another body
+	 */
+	public boolean isAlive(int handle){
+		int slot = handle & SLOT_MASK;
+		return handle >= 0 && slot < numSlots && denseOf[slot] >= 0 && generations[slot] == handle >>> 24;
+	}
+
+	/**
+	 * Gets the dense index of a living body
+	 * @param handle The body
+	 * @return Its dense index
+	 * @throws IllegalArgumentException if the body has been destroyed
+	 */
+	private int denseIndex(int handle){
+		if(!isAlive(handle)) throw new IllegalArgumentException("Body handle " + handle + " is not alive.");
+		return denseOf[handle & SLOT_MASK];
+	}
+
+	/**
+	 * Gets the number of living bodies
+	 * @return The body count
+	 */
+	public int size(){
+		return count;
+	}
+
+	/**
+	 * Gets the dense index of a body, which is valid until any body is destroyed
+	 * @param handle The body
+	 * @return Its dense index
+	 * @throws IllegalArgumentException if the body has been destroyed
+	 */
+	public int indexOf(int handle){
+		return denseIndex(handle);
+	}
+
+	/**
+	 * Gets the handle of the body at a dense index
+	 * @param index The dense index
+	 * @return The body's handle
+	 */
+	public int handleAt(int index){
+		return handleOf[index];
+	}
+
+	/**
+	 * Gets the color visible bodies are filled with
+	 * @return The color
+	 */
+	public Color getColor(){
+		return color;
+	}
+
+	/**
+	 * Sets the color visible bodies are filled with
+	 * @param color The new color
+	 */
+	public void setColor(Color color){
+		this.color = color;
+	}
+
+	//Update
+	/**
+	 * Updates every body.
+	 * Records every position as the previous position, then adds every velocity to its position.
+	 * Called by the engine state this store has been added to.
+	 */
+	public void update(){
+		for(int base = 0, end = count * RECORD_SIZE; base < end; base += RECORD_SIZE){
+			double x = records.getDouble(base + X);
+			double y = records.getDouble(base + Y);
+			records.putDouble(base + PREVIOUS_X, x);
+			records.putDouble(base + PREVIOUS_Y, y);
+			records.putDouble(base + X, x + records.getDouble(base + VELOCITY_X));
+			records.putDouble(base + Y, y + records.getDouble(base + VELOCITY_Y));
+		}
+	}
+
+	/**
+	 * Copies every body into another store with one bulk copy, replacing its contents.
+	 * Handles are not copied and the target's old handles stop being alive, the copy is only meant to be read by dense index,
+	 * for example by the renderer.
+	 * @param target The store to copy into
+	 */
+	public void copyTo(OffHeapBodyStore target){
+		target.clear();
+		if(target.capacity < count) target.grow(Math.max(count, target.capacity * 2));
+		ByteBuffer source = records.duplicate();
+		source.limit(count * RECORD_SIZE).position(0);
+		ByteBuffer destination = target.records.duplicate();
+		destination.position(0);
+		destination.put(source);
+		target.count = count;
+		target.color = color;
+	}
+
+	//GameObject style accessors, by handle. Each throws an IllegalArgumentException if the body has been destroyed.
+	/**
+	 * Gets a body's position
+	 * @param handle The body
+	 * @return A new vector holding its position
+	 */
+	public Vec getPos(int handle){
+		int base = denseIndex(handle) * RECORD_SIZE;
+		return new Vec(records.getDouble(base + X), records.getDouble(base + Y));
+	}
+
+	/**
+	 * Sets a body's position
+	 * @param handle The body
+	 * @param v The new position, copied
+	 */
+	public void setPos(int handle, Vec v){
+		int base = denseIndex(handle) * RECORD_SIZE;
+		records.putDouble(base + X, v.getComponent(0));
+		records.putDouble(base + Y, v.getComponent(1));
+	}
+
+	/**
+	 * Gets the X component of a body's position
+	 * @param handle The body
+	 * @return Its X position
+	 */
+	public double getXPos(int handle){
+		return getX(denseIndex(handle));
+	}
+
+	/**
+	 * Gets the Y component of a body's position
+	 * @param handle The body
+	 * @return Its Y position
+	 */
+	public double getYPos(int handle){
+		return getY(denseIndex(handle));
+	}
+
+	/**
+	 * Gets a body's width
+	 * @param handle The body
+	 * @return Its width
+	 */
+	public double getWidth(int handle){
+		return records.getDouble(denseIndex(handle) * RECORD_SIZE + WIDTH);
+	}
+
+	/**
+	 * Gets a body's height
+	 * @param handle The body
+	 * @return Its height
+	 */
+	public double getHeight(int handle){
+		return records.getDouble(denseIndex(handle) * RECORD_SIZE + HEIGHT);
+	}
+
+	/**
+	 * Gets a body's velocity
+	 * @param handle The body
+	 * @return A new vector holding its velocity in world units per tick
+	 */
+	public Vec getVelocity(int handle){
+		int base = denseIndex(handle) * RECORD_SIZE;
+		return new Vec(records.getDouble(base + VELOCITY_X), records.getDouble(base + VELOCITY_Y));
+	}
+
+	/**
+	 * Sets a body's velocity
+	 * @param handle The body
+	 * @param v The new velocity in world units per tick, copied
+	 */
+	public void setVelocity(int handle, Vec v){
+		int base = denseIndex(handle) * RECORD_SIZE;
+		records.putDouble(base + VELOCITY_X, v.getComponent(0));
+		records.putDouble(base + VELOCITY_Y, v.getComponent(1));
+	}
+
+	/**
+	 * Gets whether a body has every flag in a mask
+	 * @param handle The body
+	 * @param mask The flags to check
+	 * @return True if all are set
+	 */
+	public boolean hasFlags(int handle, int mask){
+		return (getFlags(denseIndex(handle)) & mask) == mask;
+	}
+
+	/**
+	 * Sets or clears flags on a body
+	 * @param handle The body
+	 * @param mask The flags to change
+	 * @param set True to set them, false to clear them
+	 */
+	public void setFlags(int handle, int mask, boolean set){
+		int base = denseIndex(handle) * RECORD_SIZE;
+		int current = records.getInt(base + FLAGS);
+		records.putInt(base + FLAGS, set ? current | mask : current & ~mask);
+	}
+
+	//Dense index accessors, for engine internals and bulk processing
+	/**
+	 * Gets the X position of the body at a dense index
+	 * @param index Dense index
+	 * @return Its X position
+	 */
+	public double getX(int index){
+		return records.getDouble(index * RECORD_SIZE + X);
+	}
+
+	/**
+	 * Gets the Y position of the body at a dense index
+	 * @param index Dense index
+	 * @return Its Y position
+	 */
+	public double getY(int index){
+		return records.getDouble(index * RECORD_SIZE + Y);
+	}
+
+	/**
+	 * Gets the X position the body at a dense index had at the start of the tick
+	 * @param index Dense index
+	 * @return Its previous X position
+	 */
+	public double getPreviousX(int index){
+		return records.getDouble(index * RECORD_SIZE + PREVIOUS_X);
+	}
+
+	/**
+	 * Gets the Y position the body at a dense index had at the start of the tick
+	 * @param index Dense index
+	 * @return Its previous Y position
+	 */
+	public double getPreviousY(int index){
+		return records.getDouble(index * RECORD_SIZE + PREVIOUS_Y);
+	}
+
+	/**
+	 * Gets the width of the body at a dense index
+	 * @param index Dense index
+	 * @return Its width
+	 */
+	public double getWidthAt(int index){
+		return records.getDouble(index * RECORD_SIZE + WIDTH);
+	}
+
+	/**
+	 * Gets the height of the body at a dense index
+	 * @param index Dense index
+	 * @return Its height
+	 */
+	public double getHeightAt(int index){
+		return records.getDouble(index * RECORD_SIZE + HEIGHT);
+	}
+
+	/**
+	 * Gets the flags of the body at a dense index
+	 * @param index Dense index
+	 * @return Its flags
+	 */
+	public int getFlags(int index){
+		return records.getInt(index * RECORD_SIZE + FLAGS);
+	}
+
+	/**
+	 * Checks if a body's bounding box intersects a gameObject's, the same way {@link GameObject#isColliding(GameObject)} does
+	 * @param index Dense index of the body
+	 * @param obj The gameObject to check with
+	 * @return Whether they intersect
+	 */
+	public boolean isColliding(int index, GameObject obj){
+		Vec objPos = obj.getWorldPos();
+		double ox = objPos.getComponent(0);
+		double oy = objPos.getComponent(1);
+		double x = getX(index), y = getY(index);
+		return x < ox + obj.getWidth() && x + getWidthAt(index) > ox
+				&& y < oy + obj.getHeight() && y + getHeightAt(index) > oy;
+	}
+
+	/**
+	 * Reverts a body to its position at the start of the tick
+	 * @param index Dense index of the body
+	 */
+	public void revert(int index){
+		int base = index * RECORD_SIZE;
+		records.putDouble(base + X, records.getDouble(base + PREVIOUS_X));
+		records.putDouble(base + Y, records.getDouble(base + PREVIOUS_Y));
+	}
+
+	/**
+	 * Moves every record into a larger buffer with one bulk copy
+	 * @param newCapacity The number of bodies to make room for
+	 */
+	private void grow(int newCapacity){
+		ByteBuffer larger = allocate(newCapacity);
+		ByteBuffer source = records.duplicate();
+		source.limit(count * RECORD_SIZE).position(0);
+		larger.put(source);
+		larger.clear();
+		records = larger;
+		capacity = newCapacity;
+		handleOf = Arrays.copyOf(handleOf, newCapacity);
+	}
+
+}
@@ -45,6 +45,22 @@ public class Sprite {
 		return frameHeight;
 	}
 	
+	/**
+	 * Gets the x position of the current frame in the spriteSheet
+	 * @return The x position, in pixels, of the frame being drawn
+	 */
+	public int getFrameXPos(){
+		return frameXPos;
+	}
+	
+	/**
+	 * Gets the y position of the current frame in the spriteSheet
+	 * @return The y position, in pixels, of the frame being drawn
+	 */
+	public int getFrameYPos(){
+		return frameYPos;
+	}
+	
 	/**
 	 * Constructs a Sprite
 	 * @param spriteSheet Image to draw frames from
@@ -106,11 +122,19 @@ public class Sprite {
 	 * 		Do nothing. Keep displaying the current frame
 	 * 
 	 * Finally, call setFrame to move frame to (possibly) new image
+	 * 
+	 * Uses the sprite manager of the most recently constructed engine, see {@link #update(SpriteManager)}
 	 */
 	public void update(){
-		//Get reference to sprite manager
-		SpriteManager manager = (SpriteManager)Engine.currentInstance.getManager(Engine.Managers.SPRITEMANAGER);
-		
+		update((SpriteManager)Engine.currentInstance.getManager(Engine.Managers.SPRITEMANAGER));
+	}
+	
+	/**
+	 * Updates the sprite against a given sprite manager's clock.
+	 * See {@link #update()}.
+	 * @param manager The sprite manager of the engine this sprite is being updated in
+	 */
+	public void update(SpriteManager manager){
 		//Get number of frames that passed
 		double exactDF = manager.getDeltaFrames();
 		if(exactDF >= 1){
@@ -154,8 +178,6 @@ public class Sprite {
 			
 			//Finally, once frame variables are ready, set the frame
 			setFrame();
-			
-			System.out.println(currentColumn);		
 		}
 		
 	}
@@ -165,10 +187,21 @@ public class Sprite {
 	 * @param g2d Reference to renderer to draw sprite with
 	 */
 	public void draw(Graphics2D g2d, int xPos, int yPos, int width, int height){
+		draw(g2d, frameXPos, frameYPos, xPos, yPos, width, height);
+	}
+	
+	/**
+	 * Draws a given frame of this sprite.
+	 * Used to draw a frame recorded earlier, without reading the sprite's current frame.
+	 * @param g2d Reference to renderer to draw sprite with
+	 * @param frameX X position of the frame in the spriteSheet
+	 * @param frameY Y position of the frame in the spriteSheet
+	 */
+	public void draw(Graphics2D g2d, int frameX, int frameY, int xPos, int yPos, int width, int height){
 		//Draw the spriteSheet
 		g2d.drawImage(spriteSheet,
 				(int)(xPos - width / 2.0), (int)(yPos - height / 2.0), (int)(xPos + width / 2.0), (int)(yPos + height / 2.0), 
-				frameXPos, frameYPos, frameXPos + frameWidth, frameYPos + frameHeight, null);
+				frameX, frameY, frameX + frameWidth, frameY + frameHeight, null);
 	}
 
 }
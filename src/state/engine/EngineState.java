@@ -1,23 +1,113 @@
 package state.engine;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
 
 
+import buffer.MpscQueue;
+import engine.Engine;
+import levels.StaticGeometry;
+import mathematics.Vec;
+import mathematics.ZOrderSort;
 import state.State;
 import objects.*;
 
 /**
  * Defines a state in the {@link engine.Engine}'s finite state machine.
+ *
+ * Objects are updated in the order of the object list. Added objects go on the end, in the order they were added.
+ * Removing an object moves the last object in the list into its place, so removal is constant time
+ * but does not keep the order of the remaining objects.
+ * A state may also be set to gradually sort its objects by position, see {@link #setSpatialSort(int, double)}.
+ *
+ * Objects may be added and removed from any thread. Changes made on the thread updating this state are queued in plain lists,
+ * changes from any other thread, such as a loading thread, a network thread or the Swing event thread,
+ * go through lock-free queues which are drained at the start of the next update's adds and removes.
+ * Either way removes are applied before adds, so an object added and removed in the same tick ends up added.
+ * Everything else, including wipeState and reading the object lists, must happen on the updating thread.
  * @author Nex
  *
  */
 public class EngineState extends State {
 
+	/**
+	 * The order objects are updated in
+	 */
+	public enum UpdateOrder {
+		/** Objects update in the order of the object list */
+		LIST,
+		/**
+		 * Objects update grouped by the class of their current state, one class after another in the order the classes
+		 * were first seen, see {@link state.object.ObjectState#updateAll(List)}. Objects with no state update first.
+		 * Within a class the order is not the list order, and changes as objects come and go.
+		 */
+		STATE_CLASS
+	}
+
+	//Static attributes
+	private static ForkJoinPool updatePool;				//Worker pool shared by every engine state updating in parallel
+
 	//Attributes
+	protected Engine engine;							//The engine this state belongs to
 	protected ArrayList<GameObject> objects;			//Current list of objs in gameState
+	private List<GameObject> objectsView;				//Read only view of objects handed out by getObjects
 	protected ArrayList<GameObject> toRemove;			//Current list of objs being removed this update loop
 	protected ArrayList<GameObject> toAdd;				//Current list of objs being added this update loop
-	
+	protected int updatedCount;							//Number of objects updated by the last update
+	protected long tickCount;							//Number of times this state has updated
+	protected ArrayList<EntityStore> entityStores;		//Stores of array-backed entities updated alongside objects
+	protected ArrayList<OffHeapBodyStore> bodyStores;	//Stores of bodies kept outside the heap, updated alongside objects
+	protected ArrayList<StaticGeometry> staticGeometry;	//Level geometry which never moves, collided with and drawn but never updated
+	protected HashMap<Class<?>, ObjectPool<?>> pools;	//Pools of reusable objects by type
+	private ArrayList<GameObject> toRecycle;			//Pooled objects removed this update, recycled unless they were added again
+	private ObjectHandles handles;						//Slot table giving each object a stable handle
+
+	//Category attributes
+	private ArrayList<ObjectCategory> categories;		//Every category, each with its own category slot
+	private ObjectCategory movables, triggerables, visibles;
+	private HashMap<String, ObjectCategory> tagCategories;
+	private HashMap<Class<?>, ObjectCategory> typeCategories;
+	private ArrayList<GameObject> categoryChanges;		//Objects whose categories need checking
+	private int nextCategoryId;							//Category slot the next category will use
+	private UpdateOrder updateOrder;
+	private StateBuckets stateBuckets;					//Objects grouped by state class, null unless updating by state class
+	private int stateBucketSlot;						//Category slot of the state buckets, -1 until first needed
+
+	//Spatial sort attributes
+	private int spatialSortBudget;						//Sort steps taken on each list per update, 0 to never sort
+	private double spatialSortCellSize;					//Size of the grid cells objects are sorted by
+	private ZOrderSort objectSort, movableSort, visibleSort;
+	private ZOrderSort.Sequence objectOrder, movableOrder, visibleOrder;
+
+	//Update tier attributes
+	private UpdateTiers updateTiers;					//Decides how often distant objects update, null to update every object every tick
+	private boolean[] dueMask;							//Which objects are due to update this tick when using update tiers
+	private int nextUpdatePhase;						//Staggers the update schedules of added objects
+
+	//Activity attributes
+	private int sleepThreshold;							//Number of still updates before an object falls asleep, 0 to never sleep
+	protected int sleepingCount;						//Number of objects asleep during the last update
+
+	//Parallel update attributes
+	private boolean parallelUpdate;						//Should parallel safe objects be updated across worker threads
+	private int parallelBatchSize;						//Number of objects a single worker task updates
+	private boolean[] parallelMask;						//Which objects are being updated by the parallel phase this update
+	private volatile boolean inParallelPhase;			//Are worker threads currently updating objects
+	private ThreadLocal<DeferredChanges> deferredChanges;	//Structural changes requested by each worker thread
+	private List<DeferredChanges> allDeferredChanges;	//Every worker thread's structural changes, gathered after the parallel phase
+	private ArrayList<DeferredChange> mergedChanges;	//Scratch list used to sort gathered changes
+
+	//Cross thread attributes
+	private volatile Thread ownerThread;				//Thread which last updated this state, or constructed it if it has not updated
+	private MpscQueue<GameObject> pendingAdds;			//Objects added from other threads
+	private MpscQueue<GameObject> pendingRemoves;		//Objects removed from other threads
+
 	/**
 	 * Constructs an engine state
 	 * 	Calls constructor of State
@@ -30,6 +120,7 @@ public class EngineState extends State {
 	//Accessors
 	/**
 	 * Creates a new copy of the object list and returns it.
+	 * Prefer {@link #getObjects()} unless the copy is going to be changed or kept.
 	 * @return A new copy of the list of objects currently in engine state.
 	 */
 	public ArrayList<GameObject> getObjList ()
@@ -37,6 +128,454 @@ public class EngineState extends State {
 		return new ArrayList<GameObject>(objects);
 	}
 
+	/**
+	 * Gets a read only view of the objects currently in this engine state, without copying them.
+	 *
+	 * The view is live: it changes when this state applies its queued adds and removes at the end of update.
+	 * Objects queued with addObj and removeObj in the meantime do not show up, so iterating the view
+	 * from managers, states and triggers is always safe. Iterators are fail-fast: an iterator still in use
+	 * when the list changes throws a ConcurrentModificationException on its next step.
+	 * Copy it with {@link #getObjList()} to keep a stable list across ticks.
+	 * @return An unmodifiable view of the object list
+	 */
+	public List<GameObject> getObjects(){
+		return objectsView;
+	}
+
+	/**
+	 * Gets an object by its handle, in constant time
+	 * @param handle A handle from {@link GameObject#getHandle()}
+	 * @return The object, or null if it has been removed from this state or the handle is from another state
+	 */
+	public GameObject getObj(long handle){
+		return handles.resolve(handle);
+	}
+
+	/**
+	 * Gets whether the object a handle refers to is still in this state, in constant time
+	 * @param handle A handle from {@link GameObject#getHandle()}
+	 * @return True if the object has not been removed
+	 */
+	public boolean isAlive(long handle){
+		return handles.isAlive(handle);
+	}
+
+	/**
+	 * Gets every movable object in this state, kept up to date as objects are added and removed.
+	 * Like {@link #getObjects()} this is a read only live view.
+	 * @return A view of every {@link MovableGameObject}
+	 */
+	public List<GameObject> getMovables(){
+		return movables.getMembers();
+	}
+
+	/**
+	 * Gets every triggerable object in this state.
+	 * Objects join and leave as they are added, removed, or call setTriggerable.
+	 * Like {@link #getObjects()} this is a read only live view.
+	 * @return A view of every triggerable object
+	 */
+	public List<GameObject> getTriggerables(){
+		return triggerables.getMembers();
+	}
+
+	/**
+	 * Gets every visible object in this state.
+	 * Objects join and leave as they are added, removed, or call setVisible.
+	 * Like {@link #getObjects()} this is a read only live view.
+	 * @return A view of every visible object
+	 */
+	public List<GameObject> getVisibles(){
+		return visibles.getMembers();
+	}
+
+	/**
+	 * Gets every object in this state with a tag.
+	 * The first call for a tag builds its category from every object, after that it is kept up to date
+	 * as objects are added, removed, or have the tag added or removed.
+	 * Like {@link #getObjects()} this is a read only live view.
+	 * @param tag The tag
+	 * @return A view of every object with the tag
+	 */
+	public List<GameObject> getTagged(final String tag){
+		ObjectCategory category = tagCategories.get(tag);
+		if(category == null){
+			category = new ObjectCategory(this, nextCategoryId++){
+				@Override
+				protected boolean accepts(GameObject obj) {
+					return obj.hasTag(tag);
+				}
+			};
+			tagCategories.put(tag, category);
+			addCategory(category);
+		}
+		return category.getMembers();
+	}
+
+	/**
+	 * Gets every object in this state of a type, including subclasses.
+	 * The first call for a type builds its category from every object, after that it is kept up to date
+	 * as objects are added and removed.
+	 * Like {@link #getObjects()} this is a read only live view.
+	 * @param type The type
+	 * @return A view of every object of the type
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends GameObject> List<T> getObjectsOfType(final Class<T> type){
+		ObjectCategory category = typeCategories.get(type);
+		if(category == null){
+			category = new ObjectCategory(this, nextCategoryId++){
+				@Override
+				protected boolean accepts(GameObject obj) {
+					return type.isInstance(obj);
+				}
+			};
+			typeCategories.put(type, category);
+			addCategory(category);
+		}
+		return (List<T>)category.getMembers();
+	}
+
+	/**
+	 * Queues an object to have its categories checked, because something they depend on changed.
+	 * Called by {@link GameObject} when its visibility, triggerability, tags or state stack change.
+	 * Category views catch up at the end of update, and whenever {@link #applyCategoryChanges()} is called.
+	 * @param obj The object which changed
+	 */
+	public void categoriesChanged(GameObject obj){
+		if(inParallelPhase){
+			synchronized(categoryChanges){
+				categoryChanges.add(obj);
+			}
+		}
+		else categoryChanges.add(obj);
+	}
+
+	/**
+	 * Brings every category up to date with the objects which have changed since the last call.
+	 * Called at the end of update, and by the engine after managers react to the update.
+	 * Do not call this while iterating a category view.
+	 */
+	public void applyCategoryChanges(){
+		for(int i = 0; i < categoryChanges.size(); i++){
+			GameObject obj = categoryChanges.get(i);
+			obj.setCategoriesDirty(false);
+			if(obj.getEngineState() != this) continue;
+			for(int c = 0; c < categories.size(); c++){
+				categories.get(c).update(obj);
+			}
+			if(stateBuckets != null) stateBuckets.update(obj);
+		}
+		categoryChanges.clear();
+	}
+
+	/**
+	 * Adds a category and fills it from the current objects
+	 * @param category The new category, with a category slot no other category uses
+	 */
+	private void addCategory(ObjectCategory category){
+		categories.add(category);
+		for(GameObject obj : objects){
+			category.update(obj);
+		}
+	}
+
+	/**
+	 * Gets the entity stores updated by this state
+	 * @return An unmodifiable view of the entity stores, in the order they update
+	 */
+	public List<EntityStore> getEntityStores(){
+		return Collections.unmodifiableList(entityStores);
+	}
+
+	/**
+	 * Adds an entity store. Its entities update after this state's objects each tick,
+	 * collide with solid objects if movable, and are drawn if visible.
+	 * @param store The entity store to add
+	 */
+	public void addEntityStore(EntityStore store){
+		entityStores.add(store);
+	}
+
+	/**
+	 * Removes an entity store
+	 * @param store The entity store to remove
+	 */
+	public void removeEntityStore(EntityStore store){
+		entityStores.remove(store);
+	}
+
+	/**
+	 * Gets the off heap body stores updated by this state
+	 * @return An unmodifiable view of the body stores, in the order they update
+	 */
+	public List<OffHeapBodyStore> getBodyStores(){
+		return Collections.unmodifiableList(bodyStores);
+	}
+
+	/**
+	 * Adds an off heap body store. Its bodies move after this state's entity stores each tick,
+	 * are stopped by solid objects and static geometry if solid and movable, and are drawn if visible.
+	 * @param store The body store to add
+	 */
+	public void addBodyStore(OffHeapBodyStore store){
+		bodyStores.add(store);
+	}
+
+	/**
+	 * Removes an off heap body store
+	 * @param store The body store to remove
+	 */
+	public void removeBodyStore(OffHeapBodyStore store){
+		bodyStores.remove(store);
+	}
+
+	/**
+	 * Gets the static geometry in this state
+	 * @return An unmodifiable view of the static geometry, in the order it is drawn
+	 */
+	public List<StaticGeometry> getStaticGeometry(){
+		return Collections.unmodifiableList(staticGeometry);
+	}
+
+	/**
+	 * Adds static geometry. It is never updated, but movable objects and entities collide with its solid rectangles,
+	 * and it is drawn behind every object. It must not be changed once added.
+	 * @param geometry The geometry to add
+	 */
+	public void addStaticGeometry(StaticGeometry geometry){
+		staticGeometry.add(geometry);
+	}
+
+	/**
+	 * Removes static geometry
+	 * @param geometry The geometry to remove
+	 */
+	public void removeStaticGeometry(StaticGeometry geometry){
+		staticGeometry.remove(geometry);
+	}
+
+	/**
+	 * Registers a pool of reusable objects of a type, replacing any pool already registered for it.
+	 * Objects acquired from it with {@link #acquireObj(Class)} return to it when removed from any engine state.
+	 * Register pools before updating, not from within an object's update.
+	 * @param type The type of object pooled
+	 * @param capacity The most objects the pool will hold
+	 * @param factory Constructs objects when the pool is empty
+	 * @return The new pool, for reading its statistics
+	 */
+	public <T extends GameObject> ObjectPool<T> registerPool(Class<T> type, int capacity, ObjectPool.Factory<T> factory){
+		ObjectPool<T> pool = new ObjectPool<T>(capacity, factory);
+		pools.put(type, pool);
+		return pool;
+	}
+
+	/**
+	 * Gets the pool registered for a type
+	 * @param type The type of object pooled
+	 * @return The pool, or null if none is registered
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends GameObject> ObjectPool<T> getPool(Class<T> type){
+		return (ObjectPool<T>)pools.get(type);
+	}
+
+	/**
+	 * Takes a reset object of a type from its pool, constructing one if the pool is empty.
+	 * The object is not added to this state, set it up and call addObj as usual.
+	 * Safe to call while updating in parallel.
+	 * @param type The type of object to acquire
+	 * @return An object of that type
+	 * @throws IllegalArgumentException If no pool is registered for the type
+	 */
+	public <T extends GameObject> T acquireObj(Class<T> type){
+		ObjectPool<T> pool = getPool(type);
+		if(pool == null) throw new IllegalArgumentException("No pool registered for " + type.getName() + ".");
+		return pool.acquire();
+	}
+
+	/**
+	 * Gets the engine this state belongs to
+	 * @return The engine this state was pushed onto, or null if it has not been pushed onto one
+	 */
+	public Engine getEngine(){
+		return engine;
+	}
+
+	/**
+	 * Sets the engine this state belongs to.
+	 * Called by the engine when this state is pushed.
+	 * @param engine The owning engine
+	 */
+	public void setEngine(Engine engine){
+		this.engine = engine;
+	}
+
+	/**
+	 * Gets the number of objects updated by the last call to update
+	 * @return The number of objects updated
+	 */
+	public int getUpdatedCount(){
+		return updatedCount;
+	}
+
+	/**
+	 * Gets the number of objects which were asleep during the last call to update
+	 * @return The number of sleeping objects
+	 */
+	public int getSleepingCount(){
+		return sleepingCount;
+	}
+
+	/**
+	 * Gets the number of updates in a row an object must stay still before it falls asleep
+	 * @return The sleep threshold, 0 if objects never sleep
+	 */
+	public int getSleepThreshold(){
+		return sleepThreshold;
+	}
+
+	/**
+	 * Sets the number of updates in a row an object must stay still before it falls asleep.
+	 * Sleeping objects are skipped by update and are not tested for collisions against each other,
+	 * see {@link GameObject#isAsleep()}. Setting this to 0 or less wakes every object and stops them sleeping.
+	 * A sleeping object wakes when moved, including when its position vector is changed in place,
+	 * which is noticed at the start of the next update.
+	 * @param ticks The new sleep threshold
+	 */
+	public void setSleepThreshold(int ticks){
+		sleepThreshold = Math.max(0, ticks);
+		if(sleepThreshold == 0){
+			for(GameObject obj : objects){
+				obj.wake();
+			}
+		}
+	}
+
+	/**
+	 * Gets the update tiers deciding how often distant objects update
+	 * @return The update tiers, or null if every object updates every tick
+	 */
+	public UpdateTiers getUpdateTiers(){
+		return updateTiers;
+	}
+
+	/**
+	 * Sets the update tiers deciding how often distant objects update.
+	 * Every object's schedule is reset, so each one updates on the next tick.
+	 * @param tiers The update tiers to use, or null to update every object every tick
+	 */
+	public void setUpdateTiers(UpdateTiers tiers){
+		updateTiers = tiers;
+		for(GameObject obj : objects){
+			obj.resetUpdateTier(nextUpdatePhase++);
+		}
+	}
+
+	/**
+	 * Gets the order objects are updated in
+	 * @return The update order
+	 */
+	public UpdateOrder getUpdateOrder(){
+		return updateOrder;
+	}
+
+	/**
+	 * Sets the order objects are updated in.
+	 * Updating by state class keeps each state class's update loop to itself, which lets the JIT optimize it,
+	 * but games which depend on objects updating in list order should keep {@link UpdateOrder#LIST}, the default.
+	 * Parallel updates always run in list order.
+	 * @param order The new update order
+	 */
+	public void setUpdateOrder(UpdateOrder order){
+		updateOrder = order;
+		if(order == UpdateOrder.STATE_CLASS){
+			if(stateBuckets != null) return;
+			//Buckets share one category slot, taken the first time they are needed
+			if(stateBucketSlot < 0) stateBucketSlot = nextCategoryId++;
+			stateBuckets = new StateBuckets(this, stateBucketSlot);
+			for(GameObject obj : objects){
+				stateBuckets.update(obj);
+			}
+		}
+		else{
+			stateBuckets = null;
+		}
+	}
+
+	/**
+	 * Gets the number of sort steps taken on each list per update
+	 * @return The spatial sort budget, 0 if objects are not sorted
+	 */
+	public int getSpatialSortBudget(){
+		return spatialSortBudget;
+	}
+
+	/**
+	 * Gets the size of the grid cells objects are sorted by
+	 * @return The spatial sort cell size
+	 */
+	public double getSpatialSortCellSize(){
+		return spatialSortCellSize;
+	}
+
+	/**
+	 * Sets whether objects are gradually sorted by position.
+	 * At the end of each update the object list, the movables and the visibles are each sorted a little further along
+	 * a Z-order curve of their world positions, so objects near each other in the world end up near each other in the lists,
+	 * and collision and drawing, which walk the lists, walk memory in order too.
+	 * Each list takes at most the budget's number of steps per update, so sorting never causes a spike.
+	 *
+	 * Sorting changes the order objects update in, so games which depend on list order should leave this off, the default.
+	 * Objects updated by state class are sorted within the object list but still update by class.
+	 * @param budget Most sort steps each list takes per update, each comparing two objects and perhaps swapping them, 0 to stop sorting
+	 * @param cellSize Size of the grid cells objects are sorted by, objects in the same cell are in no particular order
+	 */
+	public void setSpatialSort(int budget, double cellSize){
+		if(cellSize <= 0) throw new IllegalArgumentException("Spatial sort cell size must be positive.");
+		spatialSortBudget = Math.max(0, budget);
+		spatialSortCellSize = cellSize;
+	}
+
+	/**
+	 * Gets whether parallel safe objects are updated across worker threads
+	 * @return Whether parallel update is enabled
+	 */
+	public boolean isParallelUpdate(){
+		return parallelUpdate;
+	}
+
+	/**
+	 * Sets whether parallel safe objects are updated across worker threads.
+	 *
+	 * When enabled, objects whose {@link GameObject#isParallelSafe()} returns true are split into batches
+	 * and updated on a shared ForkJoinPool. Every other object is then updated on the calling thread, in list order.
+	 * Calls to addObj and removeObj made while updating are deferred as usual, and are applied
+	 * in the order of the object that requested them no matter which thread ran it.
+	 * @param enabled Whether parallel update should be enabled
+	 */
+	public void setParallelUpdate(boolean enabled){
+		parallelUpdate = enabled;
+	}
+
+	/**
+	 * Gets the number of objects a single worker task updates when updating in parallel
+	 * @return The parallel batch size
+	 */
+	public int getParallelBatchSize(){
+		return parallelBatchSize;
+	}
+
+	/**
+	 * Sets the number of objects a single worker task updates when updating in parallel.
+	 * States with fewer objects than this are always updated on the calling thread.
+	 * Values below 1 are clamped to 1.
+	 * @param batchSize The new parallel batch size
+	 */
+	public void setParallelBatchSize(int batchSize){
+		parallelBatchSize = Math.max(1, batchSize);
+	}
+
 	/**
 	 * Initializes all member variables in EngineState
 	 * Member variables include:
@@ -48,8 +587,109 @@ public class EngineState extends State {
 	protected void init() {
 		//Initialize array lists
 		objects = new ArrayList<GameObject>();
+		objectsView = Collections.unmodifiableList(objects);
 		toRemove = new ArrayList<GameObject>();
 		toAdd = new ArrayList<GameObject>();
+		entityStores = new ArrayList<EntityStore>();
+		bodyStores = new ArrayList<OffHeapBodyStore>();
+		staticGeometry = new ArrayList<StaticGeometry>();
+		pools = new HashMap<Class<?>, ObjectPool<?>>();
+		toRecycle = new ArrayList<GameObject>();
+		handles = new ObjectHandles();
+
+		//Built in categories
+		categories = new ArrayList<ObjectCategory>();
+		tagCategories = new HashMap<String, ObjectCategory>();
+		typeCategories = new HashMap<Class<?>, ObjectCategory>();
+		categoryChanges = new ArrayList<GameObject>();
+		movables = new ObjectCategory(this, 0){
+			@Override
+			protected boolean accepts(GameObject obj) {
+				return obj instanceof MovableGameObject;
+			}
+		};
+		triggerables = new ObjectCategory(this, 1){
+			@Override
+			protected boolean accepts(GameObject obj) {
+				return obj.isTriggerable();
+			}
+		};
+		visibles = new ObjectCategory(this, 2){
+			@Override
+			protected boolean accepts(GameObject obj) {
+				return obj.isVisible();
+			}
+		};
+		categories.add(movables);
+		categories.add(triggerables);
+		categories.add(visibles);
+		nextCategoryId = categories.size();
+
+		//Objects update in list order unless asked otherwise
+		updateOrder = UpdateOrder.LIST;
+		stateBuckets = null;
+		stateBucketSlot = -1;
+
+		//Objects keep the order they were added in unless spatial sorting is set
+		spatialSortBudget = 0;
+		spatialSortCellSize = 64;
+		objectSort = new ZOrderSort();
+		movableSort = new ZOrderSort();
+		visibleSort = new ZOrderSort();
+		objectOrder = new ZOrderSort.Sequence(){
+			@Override
+			public int size() {
+				return objects.size();
+			}
+
+			@Override
+			public long key(int index) {
+				return spatialKey(objects.get(index));
+			}
+
+			@Override
+			public void swap(int a, int b) {
+				GameObject first = objects.get(a);
+				GameObject second = objects.get(b);
+				objects.set(a, second);
+				objects.set(b, first);
+				second.setStateIndex(a);
+				first.setStateIndex(b);
+			}
+		};
+		movableOrder = new CategoryOrder(movables);
+		visibleOrder = new CategoryOrder(visibles);
+
+		//Every object updates every tick until update tiers are set
+		tickCount = 0;
+		updateTiers = null;
+		dueMask = new boolean[0];
+		nextUpdatePhase = 0;
+
+		//Objects which stay still for half a second at the default tick rate fall asleep
+		sleepThreshold = 30;
+		sleepingCount = 0;
+
+		//Parallel update is opt in
+		parallelUpdate = false;
+		parallelBatchSize = 256;
+		parallelMask = new boolean[0];
+		inParallelPhase = false;
+		allDeferredChanges = Collections.synchronizedList(new ArrayList<DeferredChanges>());
+		mergedChanges = new ArrayList<DeferredChange>();
+		deferredChanges = new ThreadLocal<DeferredChanges>(){
+			@Override
+			protected DeferredChanges initialValue(){
+				DeferredChanges changes = new DeferredChanges();
+				allDeferredChanges.add(changes);
+				return changes;
+			}
+		};
+
+		//Other threads queue their changes until the owner drains them
+		ownerThread = Thread.currentThread();
+		pendingAdds = new MpscQueue<GameObject>();
+		pendingRemoves = new MpscQueue<GameObject>();
 	}
 
 	/**
@@ -57,7 +697,24 @@ public class EngineState extends State {
 	 * @param objToAdd The object being added
 	 */
 	public void addObj(GameObject objToAdd){
-		toAdd.add(objToAdd);
+		if(isForeignThread()) pendingAdds.offer(objToAdd);
+		else if(inParallelPhase) deferredChanges.get().defer(true, objToAdd);
+		else toAdd.add(objToAdd);
+	}
+
+	/**
+	 * Adds several objects to the engine state, in order
+	 * @param objsToAdd The objects being added
+	 */
+	public void addObjs(Collection<? extends GameObject> objsToAdd){
+		if(isForeignThread()){
+			for(GameObject obj : objsToAdd) pendingAdds.offer(obj);
+		}
+		else if(inParallelPhase){
+			DeferredChanges changes = deferredChanges.get();
+			for(GameObject obj : objsToAdd) changes.defer(true, obj);
+		}
+		else toAdd.addAll(objsToAdd);
 	}
 
 	/**
@@ -65,11 +722,50 @@ public class EngineState extends State {
 	 * @param objToRemove The object being removed
 	 */
 	public void removeObj(GameObject objToRemove){
-		toRemove.add(objToRemove);
+		if(isForeignThread()) pendingRemoves.offer(objToRemove);
+		else if(inParallelPhase) deferredChanges.get().defer(false, objToRemove);
+		else toRemove.add(objToRemove);
+	}
+
+	/**
+	 * Removes several objects from the engine state
+	 * @param objsToRemove The objects being removed
+	 */
+	public void removeObjs(Collection<? extends GameObject> objsToRemove){
+		if(isForeignThread()){
+			for(GameObject obj : objsToRemove) pendingRemoves.offer(obj);
+		}
+		else if(inParallelPhase){
+			DeferredChanges changes = deferredChanges.get();
+			for(GameObject obj : objsToRemove) changes.defer(false, obj);
+		}
+		else toRemove.addAll(objsToRemove);
+	}
+
+	/**
+	 * Gets whether the calling thread is neither the thread updating this state nor one of its parallel update workers,
+	 * so its changes must go through the cross thread queues
+	 * @return True if the caller is another thread
+	 */
+	private boolean isForeignThread(){
+		Thread current = Thread.currentThread();
+		if(current == ownerThread) return false;
+		return !(inParallelPhase && current instanceof ForkJoinWorkerThread
+				&& ((ForkJoinWorkerThread)current).getPool() == updatePool);
+	}
+
+	/**
+	 * Moves every change queued by other threads onto the add and remove lists
+	 */
+	private void drainPendingChanges(){
+		GameObject obj;
+		while((obj = pendingRemoves.poll()) != null) toRemove.add(obj);
+		while((obj = pendingAdds.poll()) != null) toAdd.add(obj);
 	}
-	
+
 	/**
-	 * Removes everything from the current state
+	 * Removes everything from the current state.
+	 * Only call this from the thread updating this state.
 	 */
 	public void wipeState(){
 		toAdd.clear();
@@ -80,25 +776,390 @@ public class EngineState extends State {
 
 	/**
 	 * Updates the engine state.
-	 * Updates every object currently in the engine state
+	 * Updates every object currently in the engine state which is awake, or only those due this tick if using {@link UpdateTiers}
+	 * Counts the update towards each updated object falling asleep
+	 * Updates every entity store
+	 * Picks up objects added and removed from other threads
 	 * Removes gameobjects which need to be removed, and clears the remove list
 	 * Adds gameobjects which need to be added, and clears the add list
 	 */
 	@Override
 	public void update() {
+		//Whichever thread updates this state owns its lists
+		ownerThread = Thread.currentThread();
+
+		//Decide which objects are due this tick
+		boolean[] due = scheduleUpdates();
+		int numObjects = objects.size();
+
 		//Update every gameobject in objects
-		for(GameObject obj : objects)
-			obj.update();
+		if(parallelUpdate && objects.size() > parallelBatchSize){
+			updateParallel(due);
+		}
+		else if(stateBuckets != null){
+			//Place objects whose states changed since the last update, such as from input, in their buckets
+			applyCategoryChanges();
+			updatedCount = stateBuckets.updateAll(due);
+		}
+		else if(due == null){
+			updatedCount = objects.size();
+			for(GameObject obj : objects)
+				obj.update();
+		}
+		else{
+			updatedCount = 0;
+			for(int i = 0; i < numObjects; i++){
+				GameObject obj = objects.get(i);
+				if(due[i]){
+					obj.update();
+					updatedCount++;
+				}
+				else{
+					obj.skipUpdate();
+				}
+			}
+		}
+		tickCount++;
+
+		//Update every entity store
+		for(int i = 0; i < entityStores.size(); i++){
+			EntityStore store = entityStores.get(i);
+			store.update();
+			updatedCount += store.size();
+		}
+		for(int i = 0; i < bodyStores.size(); i++){
+			OffHeapBodyStore store = bodyStores.get(i);
+			store.update();
+			updatedCount += store.size();
+		}
+
+		//Let objects which have stopped moving fall asleep
+		if(sleepThreshold > 0){
+			for(int i = 0; i < numObjects; i++){
+				if(due == null || due[i]) objects.get(i).checkActivity(sleepThreshold);
+			}
+		}
+
+		//pick up changes other threads have queued since the last update
+		drainPendingChanges();
 
 		//remove every gameobject in toRemove from objects
-		for(GameObject obj : toRemove)
-			objects.remove(obj);
+		for(GameObject obj : toRemove){
+			boolean movedAway = obj.getEngineState() != this;
+			if(!removeFromList(obj)) continue;
+			for(int c = 0; c < categories.size(); c++){
+				categories.get(c).remove(obj, movedAway);
+			}
+			if(stateBuckets != null) stateBuckets.remove(obj, movedAway);
+			handles.release(obj, movedAway);
+			if(!movedAway){
+				obj.setEngineState(null);
+				obj.setStateIndex(-1);
+				obj.setHandle(ObjectHandles.NONE);
+				if(obj.isPooled()) toRecycle.add(obj);
+			}
+		}
 		toRemove.clear();
 
-		//add every game object in toAdd to objects
-		for(GameObject obj : toAdd)
+		//add every game object in toAdd to objects, skipping any already here
+		for(GameObject obj : toAdd){
+			if(isInList(obj)) continue;
+			obj.setStateIndex(objects.size());
 			objects.add(obj);
+			obj.setEngineState(this);
+			obj.setHandle(handles.assign(obj));
+			obj.resetUpdateTier(nextUpdatePhase++);
+			obj.wake();
+			obj.setCategoriesDirty(false);
+			for(int c = 0; c < categories.size(); c++){
+				categories.get(c).update(obj);
+			}
+			if(stateBuckets != null) stateBuckets.update(obj);
+		}
 		toAdd.clear();
+		applyCategoryChanges();
+
+		//sort a little further by position, now the lists are settled for this tick
+		if(spatialSortBudget > 0){
+			objectSort.sort(objectOrder, spatialSortBudget);
+			movableSort.sort(movableOrder, spatialSortBudget);
+			visibleSort.sort(visibleOrder, spatialSortBudget);
+		}
+
+		//return removed pooled objects to their pools, unless they were added straight back
+		for(GameObject obj : toRecycle){
+			if(obj.getEngineState() == null) obj.recycle();
+		}
+		toRecycle.clear();
+	}
+
+	/**
+	 * Gets whether an object is in the object list
+	 * @param obj The object to look for
+	 * @return True if it is in the list
+	 */
+	private boolean isInList(GameObject obj){
+		if(obj.getEngineState() != this) return false;
+		int index = obj.getStateIndex();
+		return index >= 0 && index < objects.size() && objects.get(index) == obj;
+	}
+
+	/**
+	 * Removes an object from the object list by moving the last object into its place
+	 * @param obj The object to remove
+	 * @return True if the object was in the list
+	 */
+	private boolean removeFromList(GameObject obj){
+		int index = -1;
+		if(obj.getEngineState() == this){
+			index = obj.getStateIndex();
+			if(index < 0 || index >= objects.size() || objects.get(index) != obj) index = -1;
+		}
+		else{
+			//Objects which have since moved to another state no longer know their index here
+			index = objects.indexOf(obj);
+		}
+		if(index < 0) return false;
+
+		GameObject last = objects.remove(objects.size() - 1);
+		if(last != obj){
+			objects.set(index, last);
+			if(last.getEngineState() == this) last.setStateIndex(index);
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the Z-order key an object is sorted by
+	 * @param obj The object
+	 * @return The key of its world position
+	 */
+	private long spatialKey(GameObject obj){
+		Vec pos = obj.getWorldPos();
+		return ZOrderSort.key(pos.getComponent(0), pos.getComponent(1), spatialSortCellSize);
+	}
+
+	/**
+	 * Decides which objects update this tick.
+	 * Sleeping objects which have been moved in place wake up, the rest never update,
+	 * and awake objects are placed in their update tier if using update tiers.
+	 * @return Which objects are due, by index in objects, or null if every object is due
+	 */
+	private boolean[] scheduleUpdates(){
+		sleepingCount = 0;
+		if(updateTiers == null && sleepThreshold == 0) return null;
+
+		int numObjects = objects.size();
+		if(dueMask.length < numObjects){
+			dueMask = new boolean[Math.max(numObjects, dueMask.length * 2)];
+		}
+
+		if(updateTiers != null) updateTiers.beginTick(engine);
+		for(int i = 0; i < numObjects; i++){
+			GameObject obj = objects.get(i);
+			//Sleepers moved in place since last tick wake up, a cheap comparison against where they fell asleep
+			if(obj.isAsleep() && sleepThreshold > 0) obj.checkActivity(sleepThreshold);
+			if(obj.isAsleep()){
+				dueMask[i] = false;
+				sleepingCount++;
+			}
+			else if(updateTiers != null){
+				int tier = updateTiers.getTier(obj.getWorldPos());
+				dueMask[i] = obj.isUpdateDue(tier, updateTiers.getInterval(tier), tickCount);
+			}
+			else{
+				dueMask[i] = true;
+			}
+		}
+		return dueMask;
+	}
+
+	/**
+	 * Updates every parallel safe object on the worker pool, then every other object on this thread.
+	 * Structural changes requested by workers are sorted by the index of the object which requested them
+	 * and queued before any changes requested by the sequential objects.
+	 * @param due Which objects are due to update this tick, or null if all of them are
+	 */
+	private void updateParallel(boolean[] due){
+		int numObjects = objects.size();
+
+		//Determine which objects can be updated in parallel before anything runs
+		if(parallelMask.length < numObjects){
+			parallelMask = new boolean[numObjects];
+		}
+		updatedCount = 0;
+		for(int i = 0; i < numObjects; i++){
+			if(due == null || due[i]){
+				parallelMask[i] = objects.get(i).isParallelSafe();
+				updatedCount++;
+			}
+			else{
+				parallelMask[i] = false;
+				objects.get(i).skipUpdate();
+			}
+		}
+
+		//Update the parallel safe objects across the pool
+		inParallelPhase = true;
+		try{
+			getUpdatePool().invoke(new ParallelUpdateTask(0, numObjects));
+		}
+		finally{
+			inParallelPhase = false;
+		}
+
+		//Gather the deferred structural changes in a deterministic order
+		synchronized(allDeferredChanges){
+			for(DeferredChanges changes : allDeferredChanges){
+				mergedChanges.addAll(changes.changes);
+				changes.changes.clear();
+			}
+		}
+		Collections.sort(mergedChanges);
+		for(DeferredChange change : mergedChanges){
+			if(change.add) toAdd.add(change.obj);
+			else toRemove.add(change.obj);
+		}
+		mergedChanges.clear();
+
+		//Update everything else on this thread, in list order
+		for(int i = 0; i < numObjects; i++){
+			if(!parallelMask[i] && (due == null || due[i])) objects.get(i).update();
+		}
+	}
+
+	/**
+	 * Gets the pool used for parallel updates, creating it the first time it is needed
+	 * @return The shared update pool
+	 */
+	private static synchronized ForkJoinPool getUpdatePool(){
+		if(updatePool == null){
+			updatePool = new ForkJoinPool();
+		}
+		return updatePool;
+	}
+
+	/**
+	 * A task which updates the parallel safe objects in a range of the objects list,
+	 * splitting itself in half until the range is no larger than the parallel batch size.
+	 */
+	private class ParallelUpdateTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		//Attributes
+		private final int start, end;
+
+		/**
+		 * Constructs a parallel update task
+		 * @param start Index of the first object to update
+		 * @param end Index after the last object to update
+		 */
+		public ParallelUpdateTask(int start, int end){
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if(end - start <= parallelBatchSize){
+				DeferredChanges changes = deferredChanges.get();
+				for(int i = start; i < end; i++){
+					if(parallelMask[i]){
+						changes.begin(i);
+						objects.get(i).update();
+					}
+				}
+			}
+			else{
+				int middle = (start + end) >>> 1;
+				invokeAll(new ParallelUpdateTask(start, middle), new ParallelUpdateTask(middle, end));
+			}
+		}
+	}
+
+	/**
+	 * The members of a category, sorted by position
+	 */
+	private class CategoryOrder implements ZOrderSort.Sequence {
+
+		//Attributes
+		private final ObjectCategory category;
+
+		private CategoryOrder(ObjectCategory category){
+			this.category = category;
+		}
+
+		@Override
+		public int size() {
+			return category.getMembers().size();
+		}
+
+		@Override
+		public long key(int index) {
+			return spatialKey(category.getMembers().get(index));
+		}
+
+		@Override
+		public void swap(int a, int b) {
+			category.swap(a, b);
+		}
+	}
+
+	/**
+	 * The structural changes requested on a single worker thread during the parallel phase
+	 */
+	private static class DeferredChanges {
+
+		//Attributes
+		private ArrayList<DeferredChange> changes = new ArrayList<DeferredChange>();
+		private int sourceIndex;			//Index of the object currently being updated on this thread
+		private int sequence;				//Number of changes that object has requested so far
+
+		/**
+		 * Marks the start of an object's update
+		 * @param index Index of the object being updated
+		 */
+		private void begin(int index){
+			sourceIndex = index;
+			sequence = 0;
+		}
+
+		/**
+		 * Records a structural change requested by the object currently being updated
+		 * @param add True if the object is being added, false if removed
+		 * @param obj The object being added or removed
+		 */
+		private void defer(boolean add, GameObject obj){
+			changes.add(new DeferredChange(sourceIndex, sequence++, add, obj));
+		}
+	}
+
+	/**
+	 * A single structural change requested during the parallel phase.
+	 * Orders by the index of the requesting object, then by the order it made its requests.
+	 */
+	private static class DeferredChange implements Comparable<DeferredChange> {
+
+		//Attributes
+		private final int sourceIndex;
+		private final int sequence;
+		private final boolean add;
+		private final GameObject obj;
+
+		private DeferredChange(int sourceIndex, int sequence, boolean add, GameObject obj){
+			this.sourceIndex = sourceIndex;
+			this.sequence = sequence;
+			this.add = add;
+			this.obj = obj;
+		}
+
+		@Override
+		public int compareTo(DeferredChange other) {
+			if(sourceIndex != other.sourceIndex) return sourceIndex < other.sourceIndex ? -1 : 1;
+			if(sequence != other.sequence) return sequence < other.sequence ? -1 : 1;
+			return 0;
+		}
 	}
 
 }
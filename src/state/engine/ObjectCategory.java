@@ -0,0 +1,118 @@
+package state.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import objects.GameObject;
+
+/**
+ * A subset of the objects in an {@link EngineState}, such as every visible object, kept up to date by the state.
+ *
+ * Each category decides which objects belong to it. The state checks an object when it is added, and again whenever
+ * the object changes something a category may depend on, such as its visibility, triggerability or tags.
+ * Members are kept in a list, and each object remembers its slot in every category it is in,
+ * so objects join and leave in constant time. Like the object list, leaving a category does not keep member order,
+ * and members are reordered along with the object list when the state sorts its objects spatially.
+ * @author Nex
+ *
+ */
+public abstract class ObjectCategory {
+
+	//Attributes
+	private final EngineState state;				//The state whose objects this category holds
+	private final int id;							//Which of an object's category slots belongs to this category
+	private ArrayList<GameObject> members;
+	private List<GameObject> membersView;
+
+	/**
+	 * Constructs an empty category
+	 * @param state The state whose objects this category holds
+	 * @param id Index of this category among its state's categories
+	 */
+	ObjectCategory(EngineState state, int id) {
+		this.state = state;
+		this.id = id;
+		members = new ArrayList<GameObject>();
+		membersView = Collections.unmodifiableList(members);
+	}
+
+	/**
+	 * Decides whether an object belongs in this category
+	 * @param obj The object to check
+	 * @return True if it belongs
+	 */
+	protected abstract boolean accepts(GameObject obj);
+
+	//Accessors
+	/**
+	 * Gets a read only view of the members, which changes as objects join and leave
+	 * @return The members
+	 */
+	public List<GameObject> getMembers(){
+		return membersView;
+	}
+
+	/**
+	 * Gets whether an object is in this category
+	 * @param obj The object
+	 * @return True if it is a member
+	 */
+	public boolean contains(GameObject obj){
+		int slot = obj.getCategorySlot(id);
+		return slot >= 0 && slot < members.size() && members.get(slot) == obj;
+	}
+
+	//Methods
+	/**
+	 * Adds or removes an object so its membership matches {@link #accepts(GameObject)}
+	 * @param obj The object to check
+	 */
+	void update(GameObject obj){
+		boolean belongs = accepts(obj);
+		if(belongs == contains(obj)) return;
+		if(belongs){
+			obj.setCategorySlot(id, members.size());
+			members.add(obj);
+		}
+		else{
+			remove(obj, false);
+		}
+	}
+
+	/**
+	 * Removes an object by moving the last member into its slot. Does nothing if it is not a member.
+	 * @param obj The object to remove
+	 * @param search True to search the members if the object's slot does not point at it, which happens when
+	 * the object has since been added to another state and its slot was reused there
+	 */
+	void remove(GameObject obj, boolean search){
+		boolean known = contains(obj);
+		if(!known && !search) return;
+		int slot = known ? obj.getCategorySlot(id) : members.indexOf(obj);
+		if(slot < 0) return;
+
+		GameObject last = members.remove(members.size() - 1);
+		if(last != obj){
+			members.set(slot, last);
+			//An object which has since moved to another state uses its slots there, leave them alone
+			if(last.getEngineState() == state) last.setCategorySlot(id, slot);
+		}
+		if(known) obj.setCategorySlot(id, -1);
+	}
+
+	/**
+	 * Swaps two members, keeping their slots up to date
+	 * @param a Slot of the first member
+	 * @param b Slot of the second member
+	 */
+	void swap(int a, int b){
+		GameObject first = members.get(a);
+		GameObject second = members.get(b);
+		members.set(a, second);
+		members.set(b, first);
+		if(second.getEngineState() == state) second.setCategorySlot(id, a);
+		if(first.getEngineState() == state) first.setCategorySlot(id, b);
+	}
+
+}
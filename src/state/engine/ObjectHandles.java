@@ -0,0 +1,175 @@
+package state.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import objects.GameObject;
+
+/**
+ * A slot table giving every object in an {@link EngineState} a long handle which can be checked and looked up in constant time.
+ *
+ * A handle packs a slot index in its low 24 bits, the slot's generation in the next 24 bits,
+ * and the id of the table which issued it in its high 16 bits.
+ * When an object is removed its slot's generation goes up, so every handle to it stops resolving,
+ * even once the slot is given to another object. A handle given to another state's table does not resolve either,
+ * unless more than 65536 tables have been made since, as ids are then reused. Handles hold no reference to their object,
+ * so storing them, sending them over a network or saving them never keeps a removed object in memory.
+ * No valid handle is ever equal to {@link #NONE}.
+ * @author Nex
+ *
+ */
+public class ObjectHandles {
+
+	//Immutable Attributes
+	public static final long NONE = 0;				//The handle of an object which is in no engine state
+	public static final int MAX_SLOTS = 1 << 24;	//Most objects one table can hold at once
+	private static final int GENERATION_MASK = (1 << 24) - 1;
+	private static final AtomicInteger nextTableId = new AtomicInteger();
+
+	//Attributes
+	private final int tableId;						//Identifies this table's handles, 16 bits
+	private GameObject[] objects;					//Object in each slot, null if the slot is free
+	private int[] generations;						//Current generation of each slot, starting at 1
+	private int[] freeSlots;
+	private int numFreeSlots;
+	private int numSlots;
+
+	/**
+	 * Constructs an empty handle table
+	 */
+	ObjectHandles() {
+		tableId = nextTableId.getAndIncrement() & 0xFFFF;
+		objects = new GameObject[64];
+		generations = new int[64];
+		freeSlots = new int[64];
+		numFreeSlots = 0;
+		numSlots = 0;
+	}
+
+	//Static methods
+	/**
+	 * Gets the slot index a handle refers to
+	 * @param handle The handle
+	 * @return Its slot index
+	 */
+	public static int getIndex(long handle){
+		return (int)handle & (MAX_SLOTS - 1);
+	}
+
+	/**
+	 * Gets the generation a handle refers to
+	 * @param handle The handle
+	 * @return Its generation
+	 */
+	public static int getGeneration(long handle){
+		return (int)(handle >>> 24) & GENERATION_MASK;
+	}
+
+	/**
+	 * Gets the id of the table which issued a handle
+	 * @param handle The handle
+	 * @return The issuing table's id
+	 */
+	public static int getTableId(long handle){
+		return (int)(handle >>> 48);
+	}
+
+	private long pack(int index, int generation){
+		return ((long)tableId << 48) | ((long)generation << 24) | index;
+	}
+
+	//Methods
+	/**
+	 * Gets the object a handle refers to
+	 * @param handle The handle
+	 * @return The object, or null if it has been removed or the handle is from another state
+	 */
+	public GameObject resolve(long handle){
+		if(getTableId(handle) != tableId) return null;
+		int index = getIndex(handle);
+		if(index >= numSlots || generations[index] != getGeneration(handle)) return null;
+		return objects[index];
+	}
+
+	/**
+	 * Gets whether a handle still refers to an object
+	 * @param handle The handle
+	 * @return True if the object it refers to has not been removed, false if it has or the handle is from another state
+	 */
+	public boolean isAlive(long handle){
+		return resolve(handle) != null;
+	}
+
+	/**
+	 * Gets the id this table marks its handles with
+	 * @return The table id
+	 */
+	public int getTableId(){
+		return tableId;
+	}
+
+	/**
+	 * Gets the number of objects holding a handle
+	 * @return The number of used slots
+	 */
+	public int size(){
+		return numSlots - numFreeSlots;
+	}
+
+	/**
+	 * Gives an object a slot
+	 * @param obj The object
+	 * @return The object's new handle
+	 * @throws IllegalStateException if the table already holds {@link #MAX_SLOTS} objects
+	 */
+	long assign(GameObject obj){
+		int index;
+		if(numFreeSlots > 0){
+			index = freeSlots[--numFreeSlots];
+		}
+		else{
+			if(numSlots == MAX_SLOTS) throw new IllegalStateException("An engine state can not hold more than " + MAX_SLOTS + " objects.");
+			if(numSlots == objects.length){
+				objects = Arrays.copyOf(objects, numSlots * 2);
+				generations = Arrays.copyOf(generations, numSlots * 2);
+			}
+			index = numSlots++;
+			generations[index] = 1;
+		}
+		objects[index] = obj;
+		return pack(index, generations[index]);
+	}
+
+	/**
+	 * Frees an object's slot, so its handle and every copy of it stop resolving. Does nothing if it holds no slot.
+	 * @param obj The object whose slot is freed
+	 * @param search True to search the slots if the object's handle does not point at it, which happens when
+	 * the object has since been added to another state and given a handle there
+	 */
+	void release(GameObject obj, boolean search){
+		int index = -1;
+		if(resolve(obj.getHandle()) == obj){
+			index = getIndex(obj.getHandle());
+		}
+		else if(search){
+			for(int i = 0; i < numSlots; i++){
+				if(objects[i] == obj){
+					index = i;
+					break;
+				}
+			}
+		}
+		if(index < 0) return;
+
+		objects[index] = null;
+		//Skip the generation which would make a handle equal to NONE
+		generations[index] = (generations[index] + 1) & GENERATION_MASK;
+		if(generations[index] == 0) generations[index] = 1;
+
+		if(numFreeSlots == freeSlots.length){
+			freeSlots = Arrays.copyOf(freeSlots, numFreeSlots * 2);
+		}
+		freeSlots[numFreeSlots++] = index;
+	}
+
+}
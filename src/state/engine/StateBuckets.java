@@ -0,0 +1,161 @@
+package state.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import objects.GameObject;
+import state.object.ObjectState;
+
+/**
+ * Groups the objects of an {@link EngineState} by the class of their current {@link ObjectState},
+ * so that {@link EngineState.UpdateOrder#STATE_CLASS} can update each class of state in a loop of its own.
+ *
+ * Each bucket is a category holding the objects whose current state is exactly one class, with one more bucket for
+ * objects with no state. An object is only ever in one bucket, so every bucket shares a single category slot.
+ * Objects move between buckets when their state stack changes, along with the state's other categories.
+ * Buckets update in the order they were created, which is the order their state classes were first seen.
+ * @author Nex
+ *
+ */
+class StateBuckets {
+
+	//Attributes
+	private final EngineState engineState;				//The state whose objects are grouped
+	private final int slot;								//Category slot shared by every bucket
+	private HashMap<Class<?>, Bucket> byClass;
+	private Bucket stateless;							//Objects with no current state
+	private ArrayList<Bucket> buckets;					//Every bucket, in update order
+	private ArrayList<GameObject> dueScratch;			//Members due this tick, reused between buckets
+
+	/**
+	 * Constructs empty buckets
+	 * @param state The state whose objects are grouped
+	 * @param slot Category slot the buckets may use
+	 */
+	StateBuckets(EngineState state, int slot) {
+		this.engineState = state;
+		this.slot = slot;
+		byClass = new HashMap<Class<?>, Bucket>();
+		buckets = new ArrayList<Bucket>();
+		stateless = new Bucket(engineState, slot, null);
+		buckets.add(stateless);
+		dueScratch = new ArrayList<GameObject>();
+	}
+
+	/**
+	 * Gets the number of buckets, including the one for objects with no state
+	 * @return The bucket count
+	 */
+	int size(){
+		return buckets.size();
+	}
+
+	/**
+	 * Moves an object into the bucket for its current state's class, creating the bucket if needed
+	 * @param obj The object to place
+	 */
+	void update(GameObject obj){
+		Bucket target = getBucket(obj.getCurrentState());
+		if(target.contains(obj)) return;
+		//Leave the old bucket first, its slot is about to be reused
+		for(int i = 0; i < buckets.size(); i++){
+			Bucket bucket = buckets.get(i);
+			if(bucket.contains(obj)){
+				bucket.remove(obj, false);
+				break;
+			}
+		}
+		target.update(obj);
+	}
+
+	/**
+	 * Takes an object out of whichever bucket holds it
+	 * @param obj The object to remove
+	 * @param search True to search every bucket's members, see {@link ObjectCategory#remove(GameObject, boolean)}
+	 */
+	void remove(GameObject obj, boolean search){
+		for(int i = 0; i < buckets.size(); i++){
+			buckets.get(i).remove(obj, search);
+		}
+	}
+
+	/**
+	 * Updates every bucket in turn.
+	 * Each non-empty bucket with a state class is handed to {@link ObjectState#updateAll(List)} of its first member's state,
+	 * objects with no state are updated directly.
+	 * @param due Which objects are due this tick by index in the object list, or null if every object is due
+	 * @return The number of objects updated
+	 */
+	int updateAll(boolean[] due){
+		int updated = 0;
+		for(int b = 0; b < buckets.size(); b++){
+			List<GameObject> members = buckets.get(b).getMembers();
+			if(members.isEmpty()) continue;
+
+			List<GameObject> toUpdate = members;
+			if(due != null){
+				dueScratch.clear();
+				for(int i = 0; i < members.size(); i++){
+					GameObject obj = members.get(i);
+					if(due[obj.getStateIndex()]) dueScratch.add(obj);
+					else obj.skipUpdate();
+				}
+				toUpdate = dueScratch;
+				if(toUpdate.isEmpty()) continue;
+			}
+
+			ObjectState representative = toUpdate.get(0).getCurrentState();
+			if(representative == null){
+				for(int i = 0; i < toUpdate.size(); i++){
+					toUpdate.get(i).update();
+				}
+			}
+			else{
+				representative.updateAll(toUpdate);
+			}
+			updated += toUpdate.size();
+		}
+		dueScratch.clear();
+		return updated;
+	}
+
+	/**
+	 * Gets the bucket for a state's class, creating it if needed
+	 * @param state The state, or null
+	 * @return The bucket
+	 */
+	private Bucket getBucket(ObjectState state){
+		if(state == null) return stateless;
+		Class<?> key = state.getClass();
+		Bucket bucket = byClass.get(key);
+		if(bucket == null){
+			bucket = new Bucket(engineState, slot, key);
+			byClass.put(key, bucket);
+			buckets.add(bucket);
+		}
+		return bucket;
+	}
+
+	/**
+	 * The objects whose current state is exactly one class
+	 */
+	private static class Bucket extends ObjectCategory {
+
+		//Attributes
+		private final Class<?> stateClass;				//Class of every member's current state, null for objects with no state
+
+		Bucket(EngineState state, int slot, Class<?> stateClass) {
+			super(state, slot);
+			this.stateClass = stateClass;
+		}
+
+		@Override
+		protected boolean accepts(GameObject obj) {
+			ObjectState state = obj.getCurrentState();
+			return stateClass == null ? state == null : state != null && state.getClass() == stateClass;
+		}
+
+	}
+
+}
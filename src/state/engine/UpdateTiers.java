@@ -0,0 +1,181 @@
+package state.engine;
+
+import java.util.ArrayList;
+
+import engine.Engine;
+import engine.manager.CameraManager;
+import mathematics.Vec;
+
+/**
+ * Decides how often each {@link objects.GameObject} in an {@link EngineState} updates, based on how far it is
+ * from the camera and from any registered interest points.
+ *
+ * Tier 0 holds everything nearer than the first tier's distance and updates every tick.
+ * Each added tier starts at a distance and updates every Nth tick. An object belongs to the farthest tier
+ * whose distance it is at or beyond, measured to whichever reference point is nearest.
+ * Objects in the same tier are staggered, so a far tier updates a fraction of its objects each tick
+ * rather than all of them at once.
+ *
+ * A tiered object's update covers every tick since its last one, see {@link objects.GameObject#getTickSpan()}.
+ * An object updates on the very next tick, whatever its schedule, when it moves into a nearer tier
+ * or when its state stack changes, so no state transition is left waiting on a far tier.
+ * @author Nex
+ *
+ */
+public class UpdateTiers {
+
+	//Attributes
+	private ArrayList<Double> distances;		//Distance each tier starts at, nearest first. Tier 0 starts at 0.
+	private ArrayList<Integer> intervals;		//How many ticks pass between updates in each tier
+	private ArrayList<Vec> interestPoints;		//Points other than the camera which keep nearby objects updating
+	private boolean useCamera;					//Is the camera a reference point
+
+	//Scratch reference points gathered at the start of each tick
+	private double[] pointX, pointY;
+	private int numPoints;
+
+	/**
+	 * Constructs update tiers holding only tier 0, measured from the camera
+	 */
+	public UpdateTiers() {
+		distances = new ArrayList<Double>();
+		intervals = new ArrayList<Integer>();
+		distances.add(0.0);
+		intervals.add(1);
+
+		interestPoints = new ArrayList<Vec>();
+		useCamera = true;
+
+		pointX = new double[1];
+		pointY = new double[1];
+		numPoints = 0;
+	}
+
+	//Accessors / Modifiers
+	/**
+	 * Adds a tier. Objects at least this far from every reference point update every interval ticks,
+	 * unless a farther tier applies.
+	 * @param distance Distance from the nearest reference point the tier starts at
+	 * @param interval Number of ticks between updates in this tier, at least 1
+	 */
+	public void addTier(double distance, int interval){
+		if(distance <= 0) throw new IllegalArgumentException("Tier distance must be positive.");
+		int index = 1;
+		while(index < distances.size() && distances.get(index) < distance) index++;
+		distances.add(index, distance);
+		intervals.add(index, Math.max(1, interval));
+	}
+
+	/**
+	 * Removes every tier but tier 0
+	 */
+	public void clearTiers(){
+		while(distances.size() > 1){
+			distances.remove(distances.size() - 1);
+			intervals.remove(intervals.size() - 1);
+		}
+	}
+
+	/**
+	 * Gets the number of tiers, including tier 0
+	 * @return The tier count
+	 */
+	public int getTierCount(){
+		return distances.size();
+	}
+
+	/**
+	 * Gets how many ticks pass between updates of objects in a tier
+	 * @param tier The tier
+	 * @return The update interval of the tier
+	 */
+	public int getInterval(int tier){
+		return intervals.get(tier);
+	}
+
+	/**
+	 * Adds a point which keeps nearby objects in the nearer tiers, such as an AI director or a second player.
+	 * The vector is read every tick, so it may be moved after being added.
+	 * @param point The interest point
+	 */
+	public void addInterestPoint(Vec point){
+		interestPoints.add(point);
+	}
+
+	/**
+	 * Removes an interest point
+	 * @param point The interest point to remove
+	 */
+	public void removeInterestPoint(Vec point){
+		interestPoints.remove(point);
+	}
+
+	/**
+	 * Gets whether distances are measured from the camera as well as the interest points
+	 * @return Whether the camera is a reference point
+	 */
+	public boolean isUsingCamera(){
+		return useCamera;
+	}
+
+	/**
+	 * Sets whether distances are measured from the camera as well as the interest points
+	 * @param useCamera Whether the camera should be a reference point
+	 */
+	public void setUseCamera(boolean useCamera){
+		this.useCamera = useCamera;
+	}
+
+	//Methods
+	/**
+	 * Gathers the reference points for this tick
+	 * @param engine The engine whose camera to measure from, may be null
+	 */
+	void beginTick(Engine engine){
+		int needed = interestPoints.size() + 1;
+		if(pointX.length < needed){
+			pointX = new double[needed];
+			pointY = new double[needed];
+		}
+
+		numPoints = 0;
+		if(useCamera && engine != null){
+			CameraManager camera = (CameraManager)engine.getManager(Engine.Managers.CAMERAMANAGER);
+			if(camera != null){
+				addPoint(camera.getPosition());
+			}
+		}
+		for(Vec point : interestPoints){
+			addPoint(point);
+		}
+	}
+
+	/**
+	 * Gets the tier a position falls in this tick
+	 * @param position The position to classify
+	 * @return The tier, 0 if there are no reference points
+	 */
+	int getTier(Vec position){
+		if(numPoints == 0) return 0;
+
+		double x = position.getComponent(0);
+		double y = position.getComponent(1);
+		double nearest = Double.MAX_VALUE;
+		for(int i = 0; i < numPoints; i++){
+			double dx = x - pointX[i];
+			double dy = y - pointY[i];
+			nearest = Math.min(nearest, dx * dx + dy * dy);
+		}
+
+		int tier = distances.size() - 1;
+		while(tier > 0 && nearest < distances.get(tier) * distances.get(tier)) tier--;
+		return tier;
+	}
+
+	private void addPoint(Vec point){
+		pointX[numPoints] = point.getComponent(0);
+		pointY[numPoints] = point.getComponent(1);
+		numPoints++;
+	}
+
+}
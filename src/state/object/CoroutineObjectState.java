@@ -0,0 +1,276 @@
+package state.object;
+
+import java.awt.Graphics2D;
+import java.lang.reflect.Method;
+import java.util.concurrent.Semaphore;
+
+import engine.Engine;
+import state.engine.EngineState;
+
+/**
+ * An {@link ObjectState} whose behavior is written as a script running from top to bottom,
+ * rather than as a state machine stepped by update().
+ *
+ * The script in {@link #run()} runs on its own thread, in lockstep with the engine: each update resumes the script
+ * and blocks until it calls {@link #yieldTick()}, {@link #waitTicks(int)} or {@link #waitSeconds(double)}, or returns.
+ * Only one of the engine and the script ever runs at a time, so the script may touch the game world
+ * exactly as update() would. Waits are counted down by the engine without resuming the script.
+ *
+ * Scripts run on virtual threads when the JVM has them (Java 21 and later), so thousands of scripted objects are cheap.
+ * Older JVMs fall back to daemon threads with a small stack.
+ *
+ * Popping this state stops the script at its next yield by throwing from it, running any finally blocks in lockstep.
+ * An object discarded without popping its states should have {@link #cancel()} called, or its script thread will
+ * stay parked.
+ * @author Nex
+ *
+ */
+public abstract class CoroutineObjectState extends ObjectState {
+
+	//Static attributes
+	private static final long FALLBACK_STACK_SIZE = 256 * 1024;	//Stack size of script threads when virtual threads are unavailable
+	private static Method ofVirtual, unstarted;					//Reflected Thread.ofVirtual() and Thread.Builder.unstarted(Runnable), or null
+	private static boolean virtualLookedUp;
+
+	//Attributes
+	private Thread scriptThread;
+	private Semaphore scriptTurn;			//Released by the engine to resume the script
+	private Semaphore engineTurn;			//Released by the script when it yields or ends
+	private volatile boolean started;
+	private volatile boolean finished;
+	private volatile boolean cancelled;
+	private volatile Throwable failure;		//What the script threw, rethrown on the engine's thread
+	private int ticksToWait;				//Ticks left before the script resumes, counted down by update
+
+	/**
+	 * Constructs a coroutine state. The script starts on the first update after the state is entered.
+	 */
+	public CoroutineObjectState() {
+		super();
+	}
+
+	/**
+	 * The script. Runs on the script thread from the first update until it returns.
+	 * @throws Exception Anything thrown is rethrown from update on the engine's thread
+	 */
+	protected abstract void run() throws Exception;
+
+	//Accessors
+	/**
+	 * Gets whether the script has returned, thrown, or been cancelled
+	 * @return True once the script will not run again
+	 */
+	public boolean isFinished(){
+		return finished;
+	}
+
+	/**
+	 * Gets whether scripts run on virtual threads in this JVM
+	 * @return True if virtual threads are available
+	 */
+	public static boolean isUsingVirtualThreads(){
+		lookUpVirtualThreads();
+		return ofVirtual != null;
+	}
+
+	//Script methods
+	/**
+	 * Suspends the script until the next update.
+	 * Only call this from within {@link #run()}.
+	 */
+	protected final void yieldTick(){
+		checkScriptThread();
+		if(cancelled) throw new Cancelled();
+		engineTurn.release();
+		scriptTurn.acquireUninterruptibly();
+		if(cancelled) throw new Cancelled();
+	}
+
+	/**
+	 * Suspends the script for a number of ticks. Waiting 1 tick is the same as {@link #yieldTick()}.
+	 * Only call this from within {@link #run()}.
+	 * @param ticks Number of ticks to wait
+	 */
+	protected final void waitTicks(int ticks){
+		ticksToWait = Math.max(0, ticks - 1);
+		yieldTick();
+	}
+
+	/**
+	 * Suspends the script for at least a number of seconds of simulated time, rounded up to whole ticks.
+	 * Only call this from within {@link #run()}.
+	 * @param seconds Number of seconds to wait
+	 */
+	protected final void waitSeconds(double seconds){
+		waitTicks((int)Math.ceil(seconds / getTickDelta()));
+	}
+
+	//State methods
+	/**
+	 * Prepares a new script thread. Subclasses overriding this must call super.enter().
+	 */
+	@Override
+	public void enter() {
+		scriptTurn = new Semaphore(0);
+		engineTurn = new Semaphore(0);
+		started = false;
+		finished = false;
+		cancelled = false;
+		failure = null;
+		ticksToWait = 0;
+		scriptThread = newThread(new Runnable(){
+			@Override
+			public void run() {
+				runScript();
+			}
+		});
+	}
+
+	/**
+	 * Resumes the script and waits for it to yield, unless it is still waiting.
+	 * Waits count down by the number of ticks this update covers.
+	 */
+	@Override
+	public void update() {
+		if(finished) return;
+
+		if(ticksToWait > 0){
+			ticksToWait -= attachedTo != null ? attachedTo.getTickSpan() : 1;
+			if(ticksToWait > 0) return;
+			ticksToWait = 0;
+		}
+
+		if(!started){
+			started = true;
+			scriptThread.start();
+		}
+		else{
+			scriptTurn.release();
+		}
+		engineTurn.acquireUninterruptibly();
+
+		Throwable t = failure;
+		if(t != null){
+			failure = null;
+			throw new RuntimeException("Coroutine script failed.", t);
+		}
+	}
+
+	/**
+	 * Stops the script. Subclasses overriding this must call super.exit().
+	 */
+	@Override
+	public void exit() {
+		cancel();
+	}
+
+	/**
+	 * Does nothing by default
+	 */
+	@Override
+	public void drawEffects(Graphics2D g2d) {
+
+	}
+
+	/**
+	 * Stops the script at its next yield, running its finally blocks before returning.
+	 * Safe to call from the script itself, in which case the script stops the next time it yields.
+	 */
+	public void cancel(){
+		if(finished || cancelled || scriptThread == null) return;
+		cancelled = true;
+
+		if(Thread.currentThread() == scriptThread) return;
+
+		if(!started){
+			//The script never ran, the thread is simply never started
+			finished = true;
+			return;
+		}
+
+		//Resume the script so it unwinds, and wait for it to finish
+		scriptTurn.release();
+		engineTurn.acquireUninterruptibly();
+		failure = null;
+	}
+
+	/**
+	 * Body of the script thread
+	 */
+	private void runScript(){
+		try{
+			if(!cancelled) run();
+		}
+		catch(Cancelled c){
+			//Stopped on purpose
+		}
+		catch(Throwable t){
+			failure = t;
+		}
+		finally{
+			finished = true;
+			engineTurn.release();
+		}
+	}
+
+	private void checkScriptThread(){
+		if(Thread.currentThread() != scriptThread){
+			throw new IllegalStateException("Only a coroutine's own script may yield.");
+		}
+	}
+
+	/**
+	 * Gets the length of a tick of the engine the attached object is in
+	 * @return The tick length in seconds
+	 */
+	private double getTickDelta(){
+		EngineState state = attachedTo != null ? attachedTo.getEngineState() : null;
+		Engine engine = state != null ? state.getEngine() : null;
+		return engine != null ? engine.getTickDelta() : 1.0 / 60.0;
+	}
+
+	/**
+	 * Creates an unstarted script thread, virtual if possible
+	 * @param body What the thread runs
+	 * @return The new thread
+	 */
+	private static Thread newThread(Runnable body){
+		lookUpVirtualThreads();
+		if(ofVirtual != null){
+			try{
+				return (Thread)unstarted.invoke(ofVirtual.invoke(null), body);
+			}
+			catch(ReflectiveOperationException e){
+				//Fall through to a platform thread
+			}
+		}
+		Thread t = new Thread(null, body, "Coroutine", FALLBACK_STACK_SIZE);
+		t.setDaemon(true);
+		return t;
+	}
+
+	/**
+	 * Looks up the virtual thread API once, so this compiles and runs on JVMs without it
+	 */
+	private static synchronized void lookUpVirtualThreads(){
+		if(virtualLookedUp) return;
+		virtualLookedUp = true;
+		try{
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			unstarted = Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class);
+		}
+		catch(ReflectiveOperationException e){
+			ofVirtual = null;
+			unstarted = null;
+		}
+	}
+
+	/**
+	 * Thrown out of a yield to unwind a cancelled script.
+	 * An Error, so scripts catching Exception do not swallow it.
+	 */
+	private static class Cancelled extends Error {
+		private static final long serialVersionUID = 1L;
+	}
+
+}
@@ -1,6 +1,7 @@
 package state.object;
 
 import java.awt.Graphics2D;
+import java.util.List;
 
 import objects.GameObject;
 
@@ -22,6 +23,89 @@ public abstract class ObjectState {
 		attachedTo = attachTo;
 	}
 
+	/**
+	 * Gets whether this state may be updated on a worker thread at the same time as other objects.
+	 * Only return true if update() touches nothing but the attached gameObject (and thread-safe data),
+	 * see {@link state.engine.EngineState#setParallelUpdate(boolean)}.
+	 * Adding and removing objects from the engine state is safe either way.
+	 * @return Whether this state is safe to update in parallel, false by default
+	 */
+	public boolean isParallelSafe(){
+		return false;
+	}
+
+	/**
+	 * Gets whether the attached gameObject may fall asleep while in this state once it stops moving.
+	 * Only return true if update() does nothing while the object is still, such as a state waiting to be pushed against.
+	 * A sleeping object's state is not updated until something wakes it, see {@link GameObject#wake()}.
+	 * @return Whether the attached object may sleep, false by default
+	 */
+	public boolean allowsSleep(){
+		return false;
+	}
+
+	/**
+	 * Updates a group of objects whose current state is exactly this state's class.
+	 * Called on one of the group's states by an engine state using {@link state.engine.EngineState.UpdateOrder#STATE_CLASS}.
+	 *
+	 * By default each object is updated with {@link GameObject#update()}. Every class of state shares the call to update()
+	 * inside GameObject, so the JIT sees many classes there and can not inline it. A state class which is updated in
+	 * large numbers can override this with the same loop written out, giving the call a site of its own
+	 * which only ever sees one class:
+	 * <pre>
+	 * for(int i = 0; i < objs.size(); i++){
+	 * 	GameObject obj = objs.get(i);
+	 * 	obj.beginUpdate();
+	 * 	obj.getCurrentState().update(obj);
+	 * 	obj.finishUpdate();
+	 * }
+	 * </pre>
+	 * Only do so if the objects do not override {@link GameObject#update()}, since it is bypassed.
+	 * Objects whose state was changed by another object earlier in the same tick may still be in the group, so do not
+	 * cast their states to this class.
+	 * @param objs The objects to update, all in a state of this class
+	 */
+	public void updateAll(List<GameObject> objs){
+		for(int i = 0; i < objs.size(); i++){
+			objs.get(i).update();
+		}
+	}
+
+	/**
+	 * Called by a gameObject when it pushes this state. Calls {@link #enter()},
+	 * states shared between objects override this instead, see {@link SharedObjectState}.
+	 * @param obj The gameObject entering this state
+	 */
+	public void enter(GameObject obj){
+		enter();
+	}
+
+	/**
+	 * Called by a gameObject to update this state. Calls {@link #update()}.
+	 * @param obj The gameObject being updated
+	 */
+	public void update(GameObject obj){
+		update();
+	}
+
+	/**
+	 * Called by a gameObject to draw this state's effects. Calls {@link #drawEffects(Graphics2D)}.
+	 * @param obj The gameObject being drawn
+	 * @param g2d reference to renderer who's current system is the game object's LOCAL COORDINATE SYSTEM!
+	 */
+	public void drawEffects(GameObject obj, Graphics2D g2d){
+		drawEffects(g2d);
+	}
+
+	/**
+	 * Called by a gameObject when it pops this state. Calls {@link #exit()}.
+	 * @param obj The gameObject leaving this state
+	 * @param data The data the gameObject held for this state, already removed from it
+	 */
+	public void exit(GameObject obj, Object data){
+		exit();
+	}
+
 	/**
 	 * Will be called on attaching a gameobject to this state.
 	 */
@@ -0,0 +1,99 @@
+package state.object;
+
+import java.awt.Graphics2D;
+
+import objects.GameObject;
+
+/**
+ * An {@link ObjectState} which one instance can serve for any number of gameObjects at once, such as a patrol shared
+ * by every guard in a level.
+ *
+ * A shared state keeps no per-object fields. Every method is instead handed the gameObject it is working on,
+ * and whatever the state needs to remember about that object is kept on the object as its state data,
+ * see {@link GameObject#setStateData(Object)}. Set the data up in {@link #enter(GameObject)}, read it in
+ * {@link #update(GameObject)}, and it is handed back to {@link #exit(GameObject, Object)} when the state is popped.
+ *
+ * The methods without a gameObject still work, as they do for any state, but since one instance serves many objects
+ * they act on {@link #attachedTo}, the gameObject which most recently pushed this state. Code working with a shared state
+ * should call the methods taking a gameObject instead.
+ * @author Nex
+ *
+ */
+public abstract class SharedObjectState extends ObjectState {
+
+	/**
+	 * Constructs a shared state
+	 */
+	public SharedObjectState() {
+		super();
+	}
+
+	//Methods
+	/**
+	 * Called when a gameObject pushes this state. The object's state data starts out null.
+	 * @param obj The gameObject entering this state
+	 */
+	@Override
+	public abstract void enter(GameObject obj);
+
+	/**
+	 * Updates this state for one gameObject. All state logic is done here.
+	 * @param obj The gameObject being updated
+	 */
+	@Override
+	public abstract void update(GameObject obj);
+
+	/**
+	 * Draws this state's effects for one gameObject, in THE OBJECTS LOCAL COORDINATE SYSTEM.
+	 * Does nothing unless overridden.
+	 * @param obj The gameObject being drawn
+	 * @param g2d reference to renderer who's current system is the game object's LOCAL COORDINATE SYSTEM!
+	 */
+	@Override
+	public void drawEffects(GameObject obj, Graphics2D g2d){
+
+	}
+
+	/**
+	 * Called when a gameObject pops this state
+	 * @param obj The gameObject leaving this state
+	 * @param data The data the gameObject held for this state
+	 */
+	@Override
+	public abstract void exit(GameObject obj, Object data);
+
+	/**
+	 * Enters this state for the gameObject which most recently pushed it. Does nothing if none has.
+	 */
+	@Override
+	public final void enter() {
+		if(attachedTo != null) enter(attachedTo);
+	}
+
+	/**
+	 * Updates this state for the gameObject which most recently pushed it. Does nothing if none has.
+	 */
+	@Override
+	public final void update() {
+		if(attachedTo != null) update(attachedTo);
+	}
+
+	/**
+	 * Draws this state's effects for the gameObject which most recently pushed it. Does nothing if none has.
+	 * @param g2d reference to renderer who's current system is the game object's LOCAL COORDINATE SYSTEM!
+	 */
+	@Override
+	public final void drawEffects(Graphics2D g2d) {
+		if(attachedTo != null) drawEffects(attachedTo, g2d);
+	}
+
+	/**
+	 * Exits this state for the gameObject which most recently pushed it, handing over that object's current state data.
+	 * Does nothing if none has.
+	 */
+	@Override
+	public final void exit() {
+		if(attachedTo != null) exit(attachedTo, attachedTo.getStateData());
+	}
+
+}